@@ -0,0 +1,12 @@
+public class AStarEngine extends DijkstraEngine {
+    @Override
+    public String getName() {
+        return "A*";
+    }
+
+    // Manhattan lower bound to the nearest target
+    @Override
+    protected int estimate(GridGraph grid, int cell, TargetSet targets) {
+        return targets.estimate(grid.xOf(cell), grid.yOf(cell));
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BatchPathFinder {
+    // Queries per fork-join leaf, small enough to balance uneven query costs
+    private static final int LEAF_SIZE = 8;
+
+    public static class BatchResult {
+        public final List<PathFinder.PathResult> results;
+        public final long[] queryNanos;
+        public final long totalNanos;
+
+        BatchResult(List<PathFinder.PathResult> results, long[] queryNanos, long totalNanos) {
+            this.results = results;
+            this.queryNanos = queryNanos;
+            this.totalNanos = totalNanos;
+        }
+    }
+
+    public static BatchResult findAll(List<Product> products, List<PathQuery> queries) {
+        LayoutSnapshot layout = LayoutSnapshot.of(products, PathFinder.GRID_WIDTH, PathFinder.GRID_HEIGHT,
+                WarehouseConfig.FLOOR_PLAN);
+        return findAll(layout, queries, ForkJoinPool.commonPool());
+    }
+
+    // Runs every query against the same snapshot in parallel, results come back in query order
+    public static BatchResult findAll(LayoutSnapshot layout, List<PathQuery> queries, ForkJoinPool pool) {
+        long startTime = System.nanoTime();
+        PathQuery[] batch = queries.toArray(new PathQuery[0]);
+        PathFinder.PathResult[] results = new PathFinder.PathResult[batch.length];
+        long[] queryNanos = new long[batch.length];
+
+        pool.invoke(new QueryTask(layout, batch, results, queryNanos, 0, batch.length));
+
+        return new BatchResult(Arrays.asList(results), queryNanos, System.nanoTime() - startTime);
+    }
+
+    private static class QueryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final LayoutSnapshot layout;
+        private final PathQuery[] queries;
+        private final PathFinder.PathResult[] results;
+        private final long[] queryNanos;
+        private final int from;
+        private final int to;
+
+        QueryTask(LayoutSnapshot layout, PathQuery[] queries, PathFinder.PathResult[] results, long[] queryNanos,
+                int from, int to) {
+            this.layout = layout;
+            this.queries = queries;
+            this.results = results;
+            this.queryNanos = queryNanos;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    long queryStart = System.nanoTime();
+                    PathQuery query = queries[i];
+                    results[i] = PathFinder.findShortestPath(layout, query.sourceId, query.targetName, query.engine);
+                    queryNanos[i] = System.nanoTime() - queryStart;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new QueryTask(layout, queries, results, queryNanos, from, mid),
+                    new QueryTask(layout, queries, results, queryNanos, mid, to));
+        }
+    }
+}
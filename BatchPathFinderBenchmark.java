@@ -0,0 +1,46 @@
+import java.util.*;
+
+// Throughput of BatchPathFinder against the same queries one by one through PathFinder, which
+// builds a snapshot per query.
+//   java BatchPathFinderBenchmark [queries]
+// 1200 bins over 40 names on a 50 x 50 floor, 5000 queries alternating Dijkstra and A* by default.
+public class BatchPathFinderBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        BenchmarkSupport.setDefault("warehouse.width", "50");
+        BenchmarkSupport.setDefault("warehouse.height", "50");
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int width = WarehouseConfig.GRID_WIDTH;
+        int height = WarehouseConfig.GRID_HEIGHT;
+        int bins = Math.min(1200, width * height / 2);
+        Random random = new Random(5);
+        List<Product> products = new ArrayList<>();
+        Set<Integer> taken = new HashSet<>();
+        while (products.size() < bins) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (taken.add(y * width + x)) {
+                products.add(new Product(products.size(), "P" + random.nextInt(40), x, y, 1));
+            }
+        }
+        List<PathQuery> queries = new ArrayList<>();
+        for (int q = 0; q < count; q++) {
+            queries.add(new PathQuery(random.nextInt(bins), "P" + random.nextInt(40),
+                    q % 2 == 0 ? PathFinder.DIJKSTRA : PathFinder.A_STAR));
+        }
+
+        System.out.printf("%d queries over %d bins, %d worker threads%n", count, bins,
+                java.util.concurrent.ForkJoinPool.commonPool().getParallelism());
+        for (int round = 0; round < ROUNDS; round++) {
+            long startTime = System.nanoTime();
+            for (PathQuery query : queries) {
+                PathFinder.findShortestPath(products, query.sourceId, query.targetName, query.engine);
+            }
+            long sequential = System.nanoTime() - startTime;
+            BatchPathFinder.BatchResult batch = BatchPathFinder.findAll(products, queries);
+            System.out.printf("round %d: one by one %.0f queries/s, batch %.0f queries/s%n", round + 1,
+                    count / (sequential / 1e9), count / (batch.totalNanos / 1e9));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+// Shared pieces of the benchmark drivers. Nothing here touches WarehouseConfig, so a driver can
+// still choose the floor size before the configuration is read.
+public final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    // Sets a system property the command line left out, call before anything reads WarehouseConfig
+    public static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    // Bytes the current thread has allocated so far, -1 on a JVM that does not count them
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    // Bins on racks two deep between single-width aisles, with a cross aisle every 25 rows. Each
+    // rack cell holds a bin with probability fill, named "P" and a number below names.
+    public static List<Product> rackedFloor(int width, int height, double fill, int names, Random random) {
+        List<Product> products = new ArrayList<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if ((x % 6 == 2 || x % 6 == 3) && y % 25 != 0 && y % 25 != 24 && random.nextDouble() < fill) {
+                    products.add(new Product(products.size(), "P" + random.nextInt(names), x, y, 1));
+                }
+            }
+        }
+        return products;
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// A width x height grid of values tiled into 32 x 32 chunks. A chunk is allocated when its first
+// cell is set and dropped again when its last one is cleared, so memory follows the occupied part
+// of the floor rather than its area. Each chunk row also has an occupancy word, one bit per cell,
+// which lets area scans skip empty chunks and empty rows without reading a single cell.
+public class ChunkedGrid<T> {
+    private static final int SHIFT = 5;
+    private static final int SIZE = 1 << SHIFT;
+    private static final int MASK = SIZE - 1;
+
+    private static class Chunk {
+        final Object[] cells = new Object[SIZE * SIZE]; // row-major, (y & MASK) * SIZE + (x & MASK)
+        final int[] occupied = new int[SIZE]; // bit x & MASK of word y & MASK
+        int count;
+    }
+
+    private final int width;
+    private final int height;
+    private final int chunksAcross;
+    private final Chunk[] chunks;
+    private int chunkCount;
+
+    public ChunkedGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksAcross = (width + MASK) >> SHIFT;
+        this.chunks = new Chunk[chunksAcross * ((height + MASK) >> SHIFT)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int x, int y) {
+        Chunk chunk = chunks[(y >> SHIFT) * chunksAcross + (x >> SHIFT)];
+        return chunk == null ? null : (T) chunk.cells[(y & MASK) * SIZE + (x & MASK)];
+    }
+
+    // Stores value at (x, y), null empties the cell
+    public void set(int x, int y, T value) {
+        int c = (y >> SHIFT) * chunksAcross + (x >> SHIFT);
+        Chunk chunk = chunks[c];
+        if (chunk == null) {
+            if (value == null) {
+                return;
+            }
+            chunk = chunks[c] = new Chunk();
+            chunkCount++;
+        }
+        int i = (y & MASK) * SIZE + (x & MASK);
+        int bit = 1 << (x & MASK);
+        if (chunk.cells[i] == null && value != null) {
+            chunk.occupied[y & MASK] |= bit;
+            chunk.count++;
+        } else if (chunk.cells[i] != null && value == null) {
+            chunk.occupied[y & MASK] &= ~bit;
+            if (--chunk.count == 0) {
+                chunks[c] = null;
+                chunkCount--;
+                return;
+            }
+        }
+        chunk.cells[i] = value;
+    }
+
+    // Calls action for every value in the rectangle, corners included and clipped to the grid,
+    // chunk by chunk and row by row within a chunk
+    @SuppressWarnings("unchecked")
+    public void forEachInArea(int startX, int startY, int endX, int endY, Consumer<T> action) {
+        startX = Math.max(startX, 0);
+        startY = Math.max(startY, 0);
+        endX = Math.min(endX, width - 1);
+        endY = Math.min(endY, height - 1);
+        for (int cy = startY >> SHIFT; cy <= endY >> SHIFT; cy++) {
+            for (int cx = startX >> SHIFT; cx <= endX >> SHIFT; cx++) {
+                Chunk chunk = chunks[cy * chunksAcross + cx];
+                if (chunk == null) {
+                    continue;
+                }
+                // Columns of this chunk inside the rectangle, as a mask over an occupancy word
+                int fromX = Math.max(startX - (cx << SHIFT), 0);
+                int toX = Math.min(endX - (cx << SHIFT), MASK);
+                int columns = (-1 >>> (MASK - toX)) & (-1 << fromX);
+                int fromY = Math.max(startY - (cy << SHIFT), 0);
+                int toY = Math.min(endY - (cy << SHIFT), MASK);
+                for (int row = fromY; row <= toY; row++) {
+                    for (int bits = chunk.occupied[row] & columns; bits != 0; bits &= bits - 1) {
+                        action.accept((T) chunk.cells[row * SIZE + Integer.numberOfTrailingZeros(bits)]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Number of chunks currently allocated
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void clear() {
+        Arrays.fill(chunks, null);
+        chunkCount = 0;
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+// Products kept as parallel int columns, one row per bin, for catalogs where millions of Product
+// objects, their boxed map keys and the pointers between them would dominate the heap.
+// Rows are packed: a removal moves the last row into the hole. getById, getAt and the list lookups
+// hand out fresh Product copies for callers to keep. peekById and peekAt fill in one reused view
+// and forEach another, so the checks ProductGrid makes on every add, move and restock build no
+// Product at all.
+public class ColumnarProductStore implements ProductStore {
+    private final int width;
+    private final int height;
+
+    private int[] ids = new int[16];
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] quantities = new int[16];
+    private int[] nameCodes = new int[16]; // code in spellings
+    private int[] namePositions = new int[16]; // index of the row in rowsByKey of its name
+    private int size;
+
+    private final IntIntMap rowById = new IntIntMap(16);
+    private final int[] rowByCell; // y * width + x -> row, -1 when the cell is empty
+
+    // Names as they were given, and the ProductNames code lookups match on
+    private final NameDictionary spellings = new NameDictionary();
+    private int[] keyOfSpelling = new int[16];
+
+    // Rows of each name code, packed, so a name lookup reads only its own rows
+    private int[][] rowsByKey = new int[16][];
+    private int[] rowCountByKey = new int[16];
+
+    private final Product view = new Product(0, null, 0, 0, 0); // forEach
+    private final Product peeked = new Product(0, null, 0, 0, 0); // peekById and peekAt
+
+    public ColumnarProductStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rowByCell = new int[width * height];
+        Arrays.fill(rowByCell, -1);
+    }
+
+    @Override
+    public void add(Product product) {
+        int existing = rowById.get(product.id, -1);
+        if (existing != -1) {
+            removeRow(existing); // same as a map put, the newer record wins
+        }
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            namePositions = Arrays.copyOf(namePositions, capacity);
+        }
+        int row = size++;
+        ids[row] = product.id;
+        xs[row] = product.x;
+        ys[row] = product.y;
+        quantities[row] = product.quantity;
+        nameCodes[row] = encode(product.name);
+        addNameRow(keyOfSpelling[nameCodes[row]], row);
+        rowById.put(product.id, row);
+        rowByCell[product.y * width + product.x] = row;
+    }
+
+    @Override
+    public Product remove(int id) {
+        int row = rowById.get(id, -1);
+        if (row == -1) {
+            return null;
+        }
+        Product removed = materialize(row);
+        removeRow(row);
+        return removed;
+    }
+
+    @Override
+    public void move(int id, int x, int y) {
+        int row = rowById.get(id, -1);
+        rowByCell[ys[row] * width + xs[row]] = -1;
+        xs[row] = x;
+        ys[row] = y;
+        rowByCell[y * width + x] = row;
+    }
+
+    @Override
+    public void setQuantity(int id, int quantity) {
+        quantities[rowById.get(id, -1)] = quantity;
+    }
+
+    @Override
+    public Product getById(int id) {
+        int row = rowById.get(id, -1);
+        return row == -1 ? null : materialize(row);
+    }
+
+    @Override
+    public Product getAt(int x, int y) {
+        int row = rowByCell[y * width + x];
+        return row == -1 ? null : materialize(row);
+    }
+
+    @Override
+    public Product peekById(int id) {
+        int row = rowById.get(id, -1);
+        return row == -1 ? null : fill(peeked, row);
+    }
+
+    @Override
+    public Product peekAt(int x, int y) {
+        int row = rowByCell[y * width + x];
+        return row == -1 ? null : fill(peeked, row);
+    }
+
+    // Walks the cells of a small rectangle, or the rows when there are fewer of them
+    @Override
+    public List<Product> getInArea(int startX, int startY, int endX, int endY) {
+        startX = Math.max(startX, 0);
+        startY = Math.max(startY, 0);
+        endX = Math.min(endX, width - 1);
+        endY = Math.min(endY, height - 1);
+        List<Product> found = new ArrayList<>();
+        if (startX > endX || startY > endY) {
+            return found;
+        }
+        if ((long) (endX - startX + 1) * (endY - startY + 1) > size) {
+            for (int row = 0; row < size; row++) {
+                if (xs[row] >= startX && xs[row] <= endX && ys[row] >= startY && ys[row] <= endY) {
+                    found.add(materialize(row));
+                }
+            }
+            return found;
+        }
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                int row = rowByCell[y * width + x];
+                if (row != -1) {
+                    found.add(materialize(row));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Product> getByName(String name) {
+        List<Product> found = new ArrayList<>();
+        int key = ProductNames.find(name);
+        if (key == -1 || key >= rowsByKey.length) {
+            return found;
+        }
+        for (int i = 0; i < rowCountByKey[key]; i++) {
+            found.add(materialize(rowsByKey[key][i]));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Product> getAll() {
+        List<Product> all = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            all.add(materialize(row));
+        }
+        return all;
+    }
+
+    @Override
+    public void forEach(Consumer<Product> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(fill(view, row));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Names stay in the dictionaries, a reload mostly brings the same ones back
+    @Override
+    public void clear() {
+        for (int row = 0; row < size; row++) {
+            rowByCell[ys[row] * width + xs[row]] = -1;
+        }
+        rowById.clear();
+        Arrays.fill(rowCountByKey, 0);
+        size = 0;
+    }
+
+    private void removeRow(int row) {
+        rowByCell[ys[row] * width + xs[row]] = -1;
+        rowById.remove(ids[row]);
+        removeNameRow(row);
+        int last = --size;
+        if (row != last) {
+            rowsByKey[keyOfSpelling[nameCodes[last]]][namePositions[last]] = row;
+            namePositions[row] = namePositions[last];
+            ids[row] = ids[last];
+            xs[row] = xs[last];
+            ys[row] = ys[last];
+            quantities[row] = quantities[last];
+            nameCodes[row] = nameCodes[last];
+            rowById.put(ids[row], row);
+            rowByCell[ys[row] * width + xs[row]] = row;
+        }
+    }
+
+    private void addNameRow(int key, int row) {
+        if (key >= rowsByKey.length) {
+            int capacity = Math.max(key + 1, rowsByKey.length * 2);
+            rowsByKey = Arrays.copyOf(rowsByKey, capacity);
+            rowCountByKey = Arrays.copyOf(rowCountByKey, capacity);
+        }
+        int[] rows = rowsByKey[key];
+        int count = rowCountByKey[key];
+        if (rows == null) {
+            rows = rowsByKey[key] = new int[4];
+        } else if (count == rows.length) {
+            rows = rowsByKey[key] = Arrays.copyOf(rows, count * 2);
+        }
+        rows[count] = row;
+        namePositions[row] = count;
+        rowCountByKey[key] = count + 1;
+    }
+
+    // Takes row out of its name's list, the list's last row moves into the hole
+    private void removeNameRow(int row) {
+        int key = keyOfSpelling[nameCodes[row]];
+        int[] rows = rowsByKey[key];
+        int moved = rows[--rowCountByKey[key]];
+        rows[namePositions[row]] = moved;
+        namePositions[moved] = namePositions[row];
+    }
+
+    private int encode(String name) {
+        int code = spellings.encode(name);
+        if (code == keyOfSpelling.length) {
+            keyOfSpelling = Arrays.copyOf(keyOfSpelling, code * 2);
+        }
+        keyOfSpelling[code] = ProductNames.codeOf(name);
+        return code;
+    }
+
+    private Product fill(Product target, int row) {
+        target.id = ids[row];
+        target.name = spellings.decode(nameCodes[row]);
+        target.nameCode = keyOfSpelling[nameCodes[row]];
+        target.x = xs[row];
+        target.y = ys[row];
+        target.quantity = quantities[row];
+        return target;
+    }
+
+    private Product materialize(int row) {
+        return new Product(ids[row], spellings.decode(nameCodes[row]), xs[row], ys[row], quantities[row]);
+    }
+}
@@ -0,0 +1,346 @@
+import java.awt.Point;
+import java.util.*;
+
+// Plans routes for several pickers together so no two of them stand on the same cell, or swap
+// cells, at the same moment (windowed hierarchical cooperative A*). Pickers are planned one after
+// another through a space-time search that avoids every (cell, time) already reserved, looking
+// only window steps ahead. The remaining distance past the window comes from a walking-distance
+// field per goal bin, so a short window still heads the right way. On a floor plan pickers keep
+// to the one-way aisles, and a step costing w takes w ticks, spent on the cell being left.
+public class CooperativePlanner {
+    private final GridGraph grid;
+    private final int window;
+
+    // Picker state, indexed by the number addAgent returned
+    private int[] position = new int[0];
+    private int[] goal = new int[0];
+    private int[] waited = new int[0]; // ticks spent on the current cell, they count towards a slow step
+    private boolean[] finished = new boolean[0];
+    private boolean[] planned = new boolean[0];
+    private int[][] plans = new int[0][]; // cells from now to the end of the window
+    private int agentCount;
+
+    private int time;
+    private int firstPriority; // rotated every replan so nobody always yields
+
+    // (time << 32 | cell) -> picker standing there
+    private final LongIntMap reservations = new LongIntMap(1024);
+
+    // Walking distance in ticks to each goal bin, ignoring other pickers
+    private final Map<Integer, int[]> fieldByGoal = new HashMap<>();
+    private int[] fieldQueue;
+
+    // Space-time search nodes, (step << 32 | cell) -> node
+    private final LongIntMap nodeIndex = new LongIntMap(1024);
+    private int[] nodeCell = new int[256];
+    private int[] nodeStep = new int[256];
+    private int[] nodeCost = new int[256];
+    private int[] nodeParent = new int[256];
+    private int nodeCount;
+    private final IndexedMinHeap open = new IndexedMinHeap(256);
+    private final int[] neighbours = new int[4];
+    private final int[] weights = new int[4];
+
+    private long lastReplanNanos;
+    private long lastExpanded;
+
+    public CooperativePlanner(GridGraph grid, int window) {
+        this.grid = grid;
+        this.window = window;
+    }
+
+    // Adds a picker standing at (startX, startY) that has to reach the bin at (goalX, goalY)
+    public int addAgent(int startX, int startY, int goalX, int goalY) {
+        if (agentCount == position.length) {
+            int capacity = Math.max(8, agentCount * 2);
+            position = Arrays.copyOf(position, capacity);
+            goal = Arrays.copyOf(goal, capacity);
+            waited = Arrays.copyOf(waited, capacity);
+            finished = Arrays.copyOf(finished, capacity);
+            planned = Arrays.copyOf(planned, capacity);
+            plans = Arrays.copyOf(plans, capacity);
+        }
+        int agent = agentCount++;
+        position[agent] = grid.cellOf(startX, startY);
+        goal[agent] = grid.cellOf(goalX, goalY);
+        waited[agent] = 0;
+        finished[agent] = position[agent] == goal[agent];
+        plans[agent] = new int[] { position[agent] };
+        return agent;
+    }
+
+    public int getAgentCount() {
+        return agentCount;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public Point getPosition(int agent) {
+        return new Point(grid.xOf(position[agent]), grid.yOf(position[agent]));
+    }
+
+    // A picker is finished once it reaches its bin and leaves the floor
+    public boolean isFinished(int agent) {
+        return finished[agent];
+    }
+
+    public boolean allFinished() {
+        for (int agent = 0; agent < agentCount; agent++) {
+            if (!finished[agent]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cells the picker is planned to stand on from now until the end of the window
+    public List<Point> getPlan(int agent) {
+        List<Point> plan = new ArrayList<>();
+        for (int cell : plans[agent]) {
+            plan.add(new Point(grid.xOf(cell), grid.yOf(cell)));
+        }
+        return plan;
+    }
+
+    public long getLastReplanNanos() {
+        return lastReplanNanos;
+    }
+
+    // Space-time nodes expanded by the last replan over all pickers
+    public long getLastExpanded() {
+        return lastExpanded;
+    }
+
+    // Plans every picker still walking for the next window steps, highest priority first.
+    // A picker that finds no plan is moved to the front and the round starts over, so the pickers
+    // planned before it have to keep out of its way.
+    public void replan() {
+        long startTime = System.nanoTime();
+        lastExpanded = 0;
+        int[] order = new int[agentCount];
+        for (int i = 0; i < agentCount; i++) {
+            order[i] = (firstPriority + i) % agentCount;
+        }
+        for (int attempt = 0; attempt <= agentCount; attempt++) {
+            int failed = planRound(order, attempt == agentCount);
+            if (failed < 0) {
+                break;
+            }
+            int agent = order[failed];
+            System.arraycopy(order, 0, order, 1, failed);
+            order[0] = agent;
+        }
+        firstPriority = agentCount == 0 ? 0 : (firstPriority + 1) % agentCount;
+        lastReplanNanos = System.nanoTime() - startTime;
+    }
+
+    // Plans the pickers in order and returns the position in order of the first one left without
+    // a plan, or -1. On the last attempt such pickers just wait where they are.
+    private int planRound(int[] order, boolean lastAttempt) {
+        reservations.clear();
+        for (int agent = 0; agent < agentCount; agent++) {
+            planned[agent] = false;
+            if (!finished[agent]) {
+                reservations.put(spaceTime(position[agent], time), agent);
+            }
+        }
+        for (int i = 0; i < order.length; i++) {
+            int agent = order[i];
+            if (finished[agent]) {
+                continue;
+            }
+            int[] plan = plan(agent);
+            if (plan == null) {
+                if (!lastAttempt) {
+                    return i;
+                }
+                plan = waitInPlace(position[agent]);
+            }
+            plans[agent] = plan;
+            planned[agent] = true;
+            for (int step = 0; step < plan.length; step++) {
+                reservations.put(spaceTime(plan[step], time + step), agent);
+            }
+        }
+        return -1;
+    }
+
+    // Moves every picker up to steps cells along its plan, pickers reaching their bin finish
+    public void advance(int steps) {
+        for (int step = 0; step < steps; step++) {
+            time++;
+            for (int agent = 0; agent < agentCount; agent++) {
+                if (finished[agent]) {
+                    continue;
+                }
+                int[] plan = plans[agent];
+                if (plan.length > 1) {
+                    plans[agent] = Arrays.copyOfRange(plan, 1, plan.length);
+                    waited[agent] = plans[agent][0] == position[agent] ? waited[agent] + 1 : 0;
+                    position[agent] = plans[agent][0];
+                } else {
+                    waited[agent]++;
+                }
+                if (position[agent] == goal[agent]) {
+                    finished[agent] = true;
+                }
+            }
+        }
+    }
+
+    // Space-time A* from the picker's cell, one tick per wait and a step's cost in ticks per move.
+    // Stops at the goal bin or at the window edge, where the goal's distance field stands in for
+    // the rest of the walk.
+    // Returns null when every way forward, waiting included, is already reserved.
+    private int[] plan(int agent) {
+        int[] field = fieldFor(goal[agent]);
+        int startCell = position[agent];
+        int target = goal[agent];
+        if (field[startCell] == Integer.MAX_VALUE) {
+            return waitInPlace(startCell);
+        }
+
+        nodeIndex.clear();
+        open.clear();
+        nodeCount = 0;
+        int first = addNode(startCell, 0, 0, -1);
+        open.insert(first, priority(field[startCell], 0));
+
+        int reached = -1;
+        while (!open.isEmpty()) {
+            int node = open.pollMin();
+            lastExpanded++;
+            int cell = nodeCell[node];
+            int step = nodeStep[node];
+            if (cell == target || step >= window) {
+                reached = node;
+                break;
+            }
+
+            int at = time + step;
+            // Waiting is a move onto the same cell, a picker may wait on the bin it starts from
+            int count = grid.edges(cell, neighbours, weights);
+            for (int k = -1; k < count; k++) {
+                int next = k < 0 ? cell : neighbours[k];
+                int ticks = k < 0 ? 1 : weights[k];
+                if (step == 0) {
+                    ticks = Math.max(1, ticks - waited[agent]); // part of the step is already done
+                }
+                if (next != target && !(next == cell && cell == startCell) && grid.isBlocked(next)) {
+                    continue;
+                }
+                if (field[next] == Integer.MAX_VALUE || isTaken(agent, cell, next, at, ticks)) {
+                    continue;
+                }
+                relax(node, next, step + ticks, field[next]);
+            }
+        }
+        if (reached == -1) {
+            return null;
+        }
+
+        // A slow step leaves the picker on the cell it steps from until the step is done
+        int[] plan = new int[nodeStep[reached] + 1];
+        for (int node = reached; node != -1; node = nodeParent[node]) {
+            int parent = nodeParent[node];
+            plan[nodeStep[node]] = nodeCell[node];
+            for (int step = parent == -1 ? 0 : nodeStep[parent] + 1; step < nodeStep[node]; step++) {
+                plan[step] = nodeCell[parent];
+            }
+        }
+        return plan;
+    }
+
+    // True if a step from cell to next taking ticks ticks from at meets another picker: while it
+    // stays on cell, or in the last tick, on next itself or head-on along the same edge
+    private boolean isTaken(int agent, int cell, int next, int at, int ticks) {
+        for (int wait = 0; wait < ticks - 1; wait++) {
+            if (isTaken(agent, cell, cell, at + wait)) {
+                return true;
+            }
+        }
+        return isTaken(agent, cell, next, at + ticks - 1);
+    }
+
+    // True if moving from cell to next between at and at + 1 meets another picker's reservation,
+    // either on next itself or head-on along the same edge
+    private boolean isTaken(int agent, int cell, int next, int at) {
+        int holder = reservations.get(spaceTime(next, at + 1), -1);
+        if (holder != -1 && holder != agent) {
+            return true;
+        }
+        if (next == cell) {
+            return false;
+        }
+        int oncoming = reservations.get(spaceTime(next, at), -1);
+        if (oncoming == -1 || oncoming == agent) {
+            return false;
+        }
+        // A picker not planned yet still stands where it is, so its cell is not free next step
+        if (!planned[oncoming]) {
+            return true;
+        }
+        return reservations.get(spaceTime(cell, at + 1), -1) == oncoming;
+    }
+
+    private void relax(int parent, int cell, int step, int remaining) {
+        int cost = nodeCost[parent] + step - nodeStep[parent];
+        long nodeKey = spaceTime(cell, step);
+        int node = nodeIndex.get(nodeKey, -1);
+        if (node == -1) {
+            node = addNode(cell, step, cost, parent);
+            nodeIndex.put(nodeKey, node);
+            open.ensureCapacity(nodeCount);
+            open.insert(node, priority(cost + remaining, cost));
+        } else if (cost < nodeCost[node] && open.contains(node)) {
+            nodeCost[node] = cost;
+            nodeParent[node] = parent;
+            open.decreaseKey(node, priority(cost + remaining, cost));
+        }
+    }
+
+    private int addNode(int cell, int step, int cost, int parent) {
+        if (nodeCount == nodeCell.length) {
+            int capacity = nodeCount * 2;
+            nodeCell = Arrays.copyOf(nodeCell, capacity);
+            nodeStep = Arrays.copyOf(nodeStep, capacity);
+            nodeCost = Arrays.copyOf(nodeCost, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+        }
+        nodeCell[nodeCount] = cell;
+        nodeStep[nodeCount] = step;
+        nodeCost[nodeCount] = cost;
+        nodeParent[nodeCount] = parent;
+        return nodeCount++;
+    }
+
+    private static long spaceTime(int cell, int time) {
+        return ((long) time << 32) | cell;
+    }
+
+    // Estimated total first, ties go to the node that has already walked further
+    private static long priority(int estimate, int cost) {
+        return ((long) estimate << 32) | (Integer.MAX_VALUE - cost);
+    }
+
+    private int[] waitInPlace(int cell) {
+        int[] plan = new int[window + 1];
+        Arrays.fill(plan, cell);
+        return plan;
+    }
+
+    private int[] fieldFor(int goalCell) {
+        int[] field = fieldByGoal.get(goalCell);
+        if (field == null) {
+            if (fieldQueue == null) {
+                fieldQueue = new int[grid.getCellCount()];
+            }
+            field = new int[grid.getCellCount()];
+            grid.distancesTo(goalCell, field, fieldQueue);
+            fieldByGoal.put(goalCell, field);
+        }
+        return field;
+    }
+}
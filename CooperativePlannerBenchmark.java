@@ -0,0 +1,113 @@
+import java.awt.Point;
+import java.util.*;
+
+// Replanning time per tick of CooperativePlanner with many pickers on a large floor: racks two
+// deep between single-width aisles, a cross aisle every 20 rows, pickers starting close together
+// so their routes cross.
+//   java CooperativePlannerBenchmark [pickers] [window] [size]
+// 24 pickers, a 16 step window and a 1000 x 1000 floor by default. The planner replans every
+// window / 2 steps until every picker is at its bin. Exits with status 1 when two pickers meet on
+// a cell or swap cells, or a picker walks through a rack.
+public class CooperativePlannerBenchmark {
+    private static final int MAX_TICKS = 2000;
+
+    public static void main(String[] args) {
+        int pickers = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        Random random = new Random(11);
+
+        GridGraph grid = new GridGraph(size, size);
+        for (int x = 1; x < size - 1; x++) {
+            for (int y = 1; y < size - 1; y++) {
+                if (x % 3 != 0 && y % 20 != 0) {
+                    grid.setBlocked(x, y, true);
+                }
+            }
+        }
+
+        // Starts in the top left corner, goal bins anywhere in a region twice as wide
+        CooperativePlanner planner = new CooperativePlanner(grid, window);
+        int region = Math.min(size / 2, 60);
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < pickers; i++) {
+            int startX;
+            int startY;
+            do {
+                startX = random.nextInt(region);
+                startY = random.nextInt(region);
+            } while (grid.isBlocked(startX, startY) || !taken.add(grid.cellOf(startX, startY)));
+            int goalX;
+            int goalY;
+            do {
+                goalX = random.nextInt(region * 2);
+                goalY = random.nextInt(region * 2);
+            } while (!grid.isBlocked(goalX, goalY));
+            planner.addAgent(startX, startY, goalX, goalY);
+        }
+
+        long totalNanos = 0;
+        long firstNanos = 0;
+        long maxNanos = 0;
+        long expanded = 0;
+        int ticks = 0;
+        int violations = 0;
+        Point[] before = new Point[pickers];
+        while (!planner.allFinished() && ticks < MAX_TICKS) {
+            planner.replan();
+            long nanos = planner.getLastReplanNanos();
+            if (ticks == 0) {
+                firstNanos = nanos; // builds the goal fields, reported apart
+            } else {
+                totalNanos += nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+            }
+            expanded += planner.getLastExpanded();
+            ticks++;
+
+            for (int step = 0; step < Math.max(1, window / 2); step++) {
+                for (int i = 0; i < pickers; i++) {
+                    before[i] = planner.isFinished(i) ? null : planner.getPosition(i);
+                }
+                planner.advance(1);
+                violations += countViolations(planner, grid, before);
+            }
+        }
+
+        System.out.printf("%d pickers on %d x %d, window %d: %s after %d steps, %d replans%n", pickers, size, size,
+                window, planner.allFinished() ? "all finished" : "not finished", planner.getTime(), ticks);
+        System.out.printf("first replan %.1f ms, then %.3f ms per tick on average, %.3f ms at most%n",
+                firstNanos / 1e6, ticks > 1 ? totalNanos / 1e6 / (ticks - 1) : 0.0, maxNanos / 1e6);
+        System.out.printf("%d space-time nodes expanded per tick, %d violations%n", expanded / ticks, violations);
+        if (violations > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Pickers sharing a cell, swapping cells, jumping or walking into a rack that is not their goal
+    private static int countViolations(CooperativePlanner planner, GridGraph grid, Point[] before) {
+        int violations = 0;
+        Map<Point, Integer> standing = new HashMap<>();
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] == null) {
+                continue;
+            }
+            Point now = planner.getPosition(i);
+            if (Math.abs(now.x - before[i].x) + Math.abs(now.y - before[i].y) > 1) {
+                violations++;
+            }
+            if (grid.isBlocked(now.x, now.y) && !planner.isFinished(i) && !now.equals(before[i])) {
+                violations++;
+            }
+            if (standing.put(now, i) != null) {
+                violations++;
+            }
+            for (int j = 0; j < i; j++) {
+                if (before[j] != null && planner.getPosition(j).equals(before[i]) && now.equals(before[j])) {
+                    violations++;
+                }
+            }
+        }
+        return violations;
+    }
+}
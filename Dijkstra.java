@@ -1,37 +1,30 @@
 import java.util.*;
 
 public class Dijkstra {
-    static class Node {
-        int id, distance;
-        Node(int id, int distance) {
-            this.id = id;
-            this.distance = distance;
-        }
-    }
-
     public static int findNearestProduct(String targetName, List<Product> products, int[][] graph, int startId) {
         int n = products.size();
         int[] dist = new int[n];
         Arrays.fill(dist, Integer.MAX_VALUE);
         dist[startId] = 0;
 
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(a -> a.distance));
-        pq.offer(new Node(startId, 0));
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        heap.insert(startId, 0);
 
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
             for (int i = 0; i < n; i++) {
-                if (graph[current.id][i] > 0 && dist[i] > dist[current.id] + graph[current.id][i]) {
-                    dist[i] = dist[current.id] + graph[current.id][i];
-                    pq.offer(new Node(i, dist[i]));
+                if (graph[current][i] > 0 && dist[i] > dist[current] + graph[current][i]) {
+                    dist[i] = dist[current] + graph[current][i];
+                    heap.insertOrDecrease(i, dist[i]);
                 }
             }
         }
 
         int minDist = Integer.MAX_VALUE;
         int nearestId = -1;
-        for (int i = 0; i < n; i++) {
-            if (products.get(i).name.equalsIgnoreCase(targetName) && i != startId && dist[i] < minDist) {
+        int target = ProductNames.find(targetName);
+        for (int i = 0; i < n && target != -1; i++) {
+            if (products.get(i).nameCode == target && i != startId && dist[i] < minDist) {
                 minDist = dist[i];
                 nearestId = i;
             }
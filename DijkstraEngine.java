@@ -0,0 +1,51 @@
+public class DijkstraEngine implements PathEngine {
+    @Override
+    public String getName() {
+        return "Dijkstra";
+    }
+
+    // Lower bound on the remaining distance from a cell, Dijkstra has none
+    protected int estimate(GridGraph grid, int cell, TargetSet targets) {
+        return 0;
+    }
+
+    @Override
+    public int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        IndexedMinHeap heap = context.getHeap();
+        int[] neighbours = context.getNeighbourBuffer();
+        int[] weights = context.getWeightBuffer();
+
+        context.setDistance(sourceCell, 0, -1);
+        heap.insert(sourceCell, estimate(grid, sourceCell, targets));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            context.markVisited(current);
+            // The first target settled is the nearest one, no need to drain the queue
+            if (targets.contains(current)) {
+                return current;
+            }
+            // Never walk through another bin, only into it
+            if (current != sourceCell && grid.isBlocked(current)) {
+                continue;
+            }
+
+            int currentDist = context.getDistance(current);
+            // Steps come from the floor plan, so racks, one-way aisles and slow zones are respected
+            int count = grid.edges(current, neighbours, weights);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (context.isVisited(next) || (grid.isBlocked(next) && !targets.contains(next))) {
+                    continue;
+                }
+                int newDist = currentDist + weights[k];
+                if (newDist < context.getDistance(next)) {
+                    context.setDistance(next, newDist, current);
+                    heap.insertOrDecrease(next, newDist + estimate(grid, next, targets));
+                }
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.*;
+
+public class DistanceCache {
+    // Largest bins x cells table kept as per-bin distance fields, 16 MB of ints
+    private static final long TABLE_BUDGET = 4_000_000L;
+    private static final int LANDMARK_COUNT = 8;
+
+    private final ProductGrid inventory;
+
+    // Everything derived from one layout version, replaced as a whole when the version moves on
+    private static class State {
+        final long version;
+        final LayoutSnapshot layout;
+        final DistanceTableEngine dijkstraTable;
+        final DistanceTableEngine aStarTable;
+        final LandmarkAStarEngine landmarks;
+
+        State(long version, LayoutSnapshot layout, DistanceTableEngine dijkstraTable,
+                DistanceTableEngine aStarTable, LandmarkAStarEngine landmarks) {
+            this.version = version;
+            this.layout = layout;
+            this.dijkstraTable = dijkstraTable;
+            this.aStarTable = aStarTable;
+            this.landmarks = landmarks;
+        }
+    }
+
+    private volatile State state;
+
+    public DistanceCache(ProductGrid inventory) {
+        this.inventory = inventory;
+    }
+
+    public PathFinder.PathResult findShortestPath(int sourceId, String targetName, PathEngine engine) {
+        long buildStart = System.nanoTime();
+        State current = currentState();
+        long buildNanos = System.nanoTime() - buildStart;
+        PathFinder.PathResult result = PathFinder.findShortestPath(current.layout, sourceId, targetName,
+                engineFor(current, engine));
+        result.stats.buildNanos = buildNanos;
+        return result;
+    }
+
+    public LayoutSnapshot getLayout() {
+        return currentState().layout;
+    }
+
+    // Small layouts answer from the distance table, large ones upgrade A* to the landmark heuristic
+    private static PathEngine engineFor(State current, PathEngine engine) {
+        if (engine == PathFinder.DIJKSTRA && current.dijkstraTable != null) {
+            return current.dijkstraTable;
+        }
+        if (engine == PathFinder.A_STAR) {
+            if (current.aStarTable != null) {
+                return current.aStarTable;
+            }
+            return current.landmarks != null ? current.landmarks : engine;
+        }
+        return engine;
+    }
+
+    private synchronized State currentState() {
+        long version = inventory.getLayoutVersion();
+        if (state == null || state.version != version) {
+            state = build(version);
+        }
+        return state;
+    }
+
+    private State build(long version) {
+        List<Product> products = inventory.getAllProducts();
+        LayoutSnapshot layout = LayoutSnapshot.of(products, inventory.getGridWidth(), inventory.getGridHeight(),
+                inventory.getFloorPlan());
+        GridGraph grid = layout.getGrid();
+
+        // Tables and landmarks hold walking distances from each bin, which only equal the distances
+        // to it when every step costs the same both ways
+        if (!grid.isUniform()) {
+            return new State(version, layout, null, null, null);
+        }
+
+        if ((long) products.size() * grid.getCellCount() <= TABLE_BUDGET) {
+            int[] rowByCell = new int[grid.getCellCount()];
+            Arrays.fill(rowByCell, -1);
+            int rows = 0;
+            for (Product p : products) {
+                if (grid.contains(p.x, p.y)) {
+                    rowByCell[grid.cellOf(p.x, p.y)] = rows++;
+                }
+            }
+            DistanceTableEngine table = new DistanceTableEngine("Dijkstra (cached)", grid, rowByCell, rows,
+                    PathFinder.DIJKSTRA);
+            return new State(version, layout, table, new DistanceTableEngine("A* (cached)", table, PathFinder.A_STAR),
+                    null);
+        }
+        return new State(version, layout, null, null, LandmarkAStarEngine.build(grid, LANDMARK_COUNT));
+    }
+}
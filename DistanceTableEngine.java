@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class DistanceTableEngine implements PathEngine {
+    private final String name;
+    private final GridGraph grid;
+    private final PathEngine fallback; // searches when a bin that could be nearest has no field yet
+
+    // Bin cell -> row of its distance field, -1 for cells without a bin
+    private final int[] rowByCell;
+
+    // One walking-distance field per bin, filled the first time the bin is a target
+    private final AtomicReferenceArray<int[]> fields;
+
+    public DistanceTableEngine(String name, GridGraph grid, int[] rowByCell, int binCount, PathEngine fallback) {
+        this.name = name;
+        this.grid = grid;
+        this.fallback = fallback;
+        this.rowByCell = rowByCell;
+        this.fields = new AtomicReferenceArray<>(binCount);
+    }
+
+    // Same table under another name, the fields are shared
+    public DistanceTableEngine(String name, DistanceTableEngine table, PathEngine fallback) {
+        this.name = name;
+        this.grid = table.grid;
+        this.fallback = fallback;
+        this.rowByCell = table.rowByCell;
+        this.fields = table.fields;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    // Nearest target is a table lookup, the route is recovered by walking down its distance field.
+    // Bins are looked at by |dx| + |dy|, a lower bound on the walk, until none left can beat the
+    // best one. Building a field is a search over the whole floor, so when a bin that could still
+    // be nearest has none yet, one search to every target answers instead, and only the bin it
+    // finds gets its field for the next query.
+    @Override
+    public int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        int x = grid.xOf(sourceCell);
+        int y = grid.yOf(sourceCell);
+        long[] byBound = new long[targets.size()];
+        for (int i = 0; i < byBound.length; i++) {
+            long bound = GridGraph.manhattan(x, y, targets.getX(i), targets.getY(i));
+            byBound[i] = bound << 32 | i;
+        }
+        Arrays.sort(byBound);
+
+        int best = -1;
+        int bestDist = Integer.MAX_VALUE;
+        for (long entry : byBound) {
+            if ((int) (entry >>> 32) >= bestDist) {
+                break;
+            }
+            int i = (int) entry;
+            int target = grid.cellOf(targets.getX(i), targets.getY(i));
+            int[] field = fields.get(rowByCell[target]);
+            if (field == null) {
+                int found = fallback.search(grid, sourceCell, targets, context);
+                if (found != -1) {
+                    field(found);
+                }
+                return found;
+            }
+            int d = field[sourceCell];
+            if (d < bestDist) {
+                bestDist = d;
+                best = target;
+            }
+        }
+        if (best == -1) {
+            return -1;
+        }
+
+        int[] field = field(best);
+        int[] neighbours = context.getNeighbourBuffer();
+        int cell = sourceCell;
+        context.setDistance(cell, 0, -1);
+        while (cell != best) {
+            int count = grid.neighbours(cell, neighbours);
+            int next = -1;
+            for (int k = 0; k < count && next == -1; k++) {
+                int n = neighbours[k];
+                if (field[n] == field[cell] - 1 && (n == best || !grid.isBlocked(n))) {
+                    next = n;
+                }
+            }
+            context.setDistance(next, context.getDistance(cell) + 1, cell);
+            cell = next;
+        }
+        return best;
+    }
+
+    private int[] field(int binCell) {
+        int row = rowByCell[binCell];
+        int[] field = fields.get(row);
+        if (field == null) {
+            field = new int[grid.getCellCount()];
+            grid.distancesFrom(binCell, field, new int[grid.getCellCount()]);
+            fields.compareAndSet(row, null, field);
+        }
+        return field;
+    }
+}
@@ -0,0 +1,106 @@
+// Two-dimensional Fenwick tree over the floor holding, per cell, whether a bin stands there and
+// how many units it holds. Point updates and rectangle totals both take O(log w * log h), where
+// summing a zone by walking its bins grows with the zone. Costs 12 bytes per cell, so ProductGrid
+// only builds it once an area total is asked for.
+public class Fenwick2D {
+    private final int width;
+    private final int height;
+    private final int stride; // height + 1, index (x + 1) * stride + (y + 1)
+    private final int[] counts;
+    private final long[] quantities;
+
+    public Fenwick2D(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = height + 1;
+        this.counts = new int[(width + 1) * stride];
+        this.quantities = new long[(width + 1) * stride];
+    }
+
+    // Builds the tree for these bins in O(w * h): the values are placed, then pushed to their
+    // Fenwick parents along y and then along x
+    public static Fenwick2D of(ProductStore store, int width, int height) {
+        Fenwick2D tree = new Fenwick2D(width, height);
+        store.forEach(product -> {
+            int i = (product.x + 1) * tree.stride + product.y + 1;
+            tree.counts[i]++;
+            tree.quantities[i] += product.quantity;
+        });
+        for (int x = 1; x <= width; x++) {
+            for (int y = 1; y <= height; y++) {
+                int parent = y + (y & -y);
+                if (parent <= height) {
+                    tree.counts[x * tree.stride + parent] += tree.counts[x * tree.stride + y];
+                    tree.quantities[x * tree.stride + parent] += tree.quantities[x * tree.stride + y];
+                }
+            }
+        }
+        for (int x = 1; x <= width; x++) {
+            int parent = x + (x & -x);
+            if (parent <= width) {
+                for (int y = 1; y <= height; y++) {
+                    tree.counts[parent * tree.stride + y] += tree.counts[x * tree.stride + y];
+                    tree.quantities[parent * tree.stride + y] += tree.quantities[x * tree.stride + y];
+                }
+            }
+        }
+        return tree;
+    }
+
+    // Adds count bins and quantity units at (x, y), negative to take them away
+    public void add(int x, int y, int count, long quantity) {
+        for (int i = x + 1; i <= width; i += i & -i) {
+            for (int j = y + 1; j <= height; j += j & -j) {
+                counts[i * stride + j] += count;
+                quantities[i * stride + j] += quantity;
+            }
+        }
+    }
+
+    // Bins in the rectangle, corners included and clipped to the floor
+    public int count(int startX, int startY, int endX, int endY) {
+        startX = Math.max(startX, 0);
+        startY = Math.max(startY, 0);
+        endX = Math.min(endX, width - 1);
+        endY = Math.min(endY, height - 1);
+        if (startX > endX || startY > endY) {
+            return 0;
+        }
+        return countTo(endX + 1, endY + 1) - countTo(startX, endY + 1) - countTo(endX + 1, startY)
+                + countTo(startX, startY);
+    }
+
+    // Units in the rectangle, corners included and clipped to the floor
+    public long sum(int startX, int startY, int endX, int endY) {
+        startX = Math.max(startX, 0);
+        startY = Math.max(startY, 0);
+        endX = Math.min(endX, width - 1);
+        endY = Math.min(endY, height - 1);
+        if (startX > endX || startY > endY) {
+            return 0;
+        }
+        return sumTo(endX + 1, endY + 1) - sumTo(startX, endY + 1) - sumTo(endX + 1, startY)
+                + sumTo(startX, startY);
+    }
+
+    // Totals over the cells x < toX, y < toY
+    private int countTo(int toX, int toY) {
+        int total = 0;
+        for (int i = toX; i > 0; i -= i & -i) {
+            for (int j = toY; j > 0; j -= j & -j) {
+                total += counts[i * stride + j];
+            }
+        }
+        return total;
+    }
+
+    private long sumTo(int toX, int toY) {
+        long total = 0;
+        for (int i = toX; i > 0; i -= i & -i) {
+            for (int j = toY; j > 0; j -= j & -j) {
+                total += quantities[i * stride + j];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// The fixed part of the floor: racks, one-way aisles and slow zones, read from a text file with
+// one character per cell and one line per row
+//   .      open floor
+//   #      rack or wall, never walked and never used for a bin
+//   1-9    open floor that costs that much to step onto, e.g. 3 for a congested zone
+//   > < ^ v  one-way aisle, no step on or off the cell may go against the arrow
+// The walkable steps are compiled into compressed sparse rows: the edges leaving cell c are
+// offsets[c] .. offsets[c + 1] - 1, each with a target cell and the cost of stepping onto it.
+public class FloorPlan {
+    private final int width;
+    private final int height;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final BitSet walls;
+    private final boolean uniform; // every step costs 1 and can be walked both ways
+
+    private FloorPlan(int width, int height, int[] offsets, int[] targets, int[] weights, BitSet walls,
+            boolean uniform) {
+        this.width = width;
+        this.height = height;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.walls = walls;
+        this.uniform = uniform;
+    }
+
+    // Loads the file named by -Dwarehouse.layout, or returns null for a plain open floor
+    static FloorPlan loadConfigured(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return load(Paths.get(file));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read floor plan " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // The file is mapped rather than read, so a million-cell floor is compiled straight from the
+    // page cache without a copy on the heap
+    public static FloorPlan load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return compile(buffer, file.toString());
+        }
+    }
+
+    private static FloorPlan compile(MappedByteBuffer buffer, String name) {
+        // Find where each row starts, lines may end in \n or \r\n and trailing blank lines are ignored
+        int[] rowStart = new int[64];
+        int height = 0;
+        int width = -1;
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buffer.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+            if (lineEnd > lineStart) {
+                if (width == -1) {
+                    width = lineEnd - lineStart;
+                } else if (lineEnd - lineStart != width) {
+                    throw new IllegalArgumentException(name + ": row " + (height + 1) + " is "
+                            + (lineEnd - lineStart) + " cells wide, expected " + width);
+                }
+                if (height == rowStart.length) {
+                    rowStart = Arrays.copyOf(rowStart, height * 2);
+                }
+                rowStart[height++] = lineStart;
+            }
+            lineStart = i + 1;
+        }
+        if (height == 0) {
+            throw new IllegalArgumentException(name + ": the floor plan is empty");
+        }
+
+        int cellCount = width * height;
+        byte[] codes = new byte[cellCount];
+        BitSet walls = new BitSet(cellCount);
+        boolean uniform = true;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                byte code = buffer.get(rowStart[y] + x);
+                if (code != '.' && code != '#' && code != '>' && code != '<' && code != '^' && code != 'v'
+                        && (code < '1' || code > '9')) {
+                    throw new IllegalArgumentException(name + ": unknown cell '" + (char) code + "' at ("
+                            + x + "," + y + ")");
+                }
+                codes[y * width + x] = code;
+                if (code == '#') {
+                    walls.set(y * width + x);
+                } else if (code != '.' && code != '1') {
+                    uniform = false;
+                }
+            }
+        }
+
+        // Two passes over the cells: count the steps leaving each one, then write them
+        int[] offsets = new int[cellCount + 1];
+        for (int cell = 0; cell < cellCount; cell++) {
+            offsets[cell + 1] = offsets[cell] + stepCount(codes, width, height, cell);
+        }
+        int[] targets = new int[offsets[cellCount]];
+        int[] weights = new int[offsets[cellCount]];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            int e = offsets[cell];
+            // Same order as GridGraph.neighbours, so ties break the same way on either graph
+            e = addStep(codes, targets, weights, e, cell, x > 0 ? cell - 1 : -1, '<');
+            e = addStep(codes, targets, weights, e, cell, x < width - 1 ? cell + 1 : -1, '>');
+            e = addStep(codes, targets, weights, e, cell, y > 0 ? cell - width : -1, '^');
+            addStep(codes, targets, weights, e, cell, y < height - 1 ? cell + width : -1, 'v');
+        }
+        return new FloorPlan(width, height, offsets, targets, weights, walls, uniform);
+    }
+
+    private static int stepCount(byte[] codes, int width, int height, int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        int count = 0;
+        if (x > 0 && isStep(codes, cell, cell - 1, '<'))
+            count++;
+        if (x < width - 1 && isStep(codes, cell, cell + 1, '>'))
+            count++;
+        if (y > 0 && isStep(codes, cell, cell - width, '^'))
+            count++;
+        if (y < height - 1 && isStep(codes, cell, cell + width, 'v'))
+            count++;
+        return count;
+    }
+
+    private static int addStep(byte[] codes, int[] targets, int[] weights, int e, int from, int to, char direction) {
+        if (to == -1 || !isStep(codes, from, to, direction)) {
+            return e;
+        }
+        targets[e] = to;
+        weights[e] = codes[to] >= '1' && codes[to] <= '9' ? codes[to] - '0' : 1;
+        return e + 1;
+    }
+
+    // A step is allowed between two cells that are not walls, unless either cell is a one-way
+    // aisle pointing the other way
+    private static boolean isStep(byte[] codes, int from, int to, char direction) {
+        if (codes[from] == '#' || codes[to] == '#') {
+            return false;
+        }
+        char against = opposite(direction);
+        return codes[from] != against && codes[to] != against;
+    }
+
+    private static char opposite(char direction) {
+        switch (direction) {
+            case '<':
+                return '>';
+            case '>':
+                return '<';
+            case '^':
+                return 'v';
+            default:
+                return '^';
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isWall(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && walls.get(y * width + x);
+    }
+
+    // True when every step costs 1 and can be walked both ways, so grid-only engines and
+    // symmetric distance tables still give the right answer
+    public boolean isUniform() {
+        return uniform;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    // First edge leaving a cell, the cell's edges end where the next cell's begin
+    public int firstEdge(int cell) {
+        return offsets[cell];
+    }
+
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return weights[edge];
+    }
+}
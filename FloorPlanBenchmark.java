@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Load time of a large floor plan, and what routing over it costs against the same bins on an
+// open grid. Writes a plan of racks two deep between aisles, every other aisle one-way, with a
+// cross aisle every 25 rows of which some are slow zones, unless a plan file is given.
+//   java FloorPlanBenchmark [size] [plan file]
+// 1000 x 1000 cells by default.
+public class FloorPlanBenchmark {
+    private static final int LOADS = 5;
+    private static final int QUERIES = 60;
+    private static final int WARMUP = 10;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Path file;
+        if (args.length > 1) {
+            file = Paths.get(args[1]);
+        } else {
+            file = Files.createTempFile("floor", ".txt");
+            file.toFile().deleteOnExit();
+            writePlan(file, size);
+        }
+
+        // The first loads run before the JIT has compiled the loader, the last ones show it warm
+        FloorPlan floor = null;
+        for (int i = 0; i < LOADS; i++) {
+            long startTime = System.nanoTime();
+            floor = FloorPlan.load(file);
+            System.out.printf("load %d: %.1f ms%n", i + 1, (System.nanoTime() - startTime) / 1e6);
+        }
+        int width = floor.getWidth();
+        int height = floor.getHeight();
+        System.out.printf("%d x %d cells, %d edges, uniform %b%n", width, height, floor.getEdgeCount(),
+                floor.isUniform());
+
+        Random random = new Random(15);
+        List<Product> products = new ArrayList<>();
+        while (products.size() < 20000) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (!floor.isWall(x, y)) {
+                products.add(new Product(products.size(), "P" + random.nextInt(2000), x, y, 1));
+            }
+        }
+        long startTime = System.nanoTime();
+        LayoutSnapshot planned = LayoutSnapshot.of(products, width, height, floor);
+        System.out.printf("snapshot over the plan: %.1f ms%n", (System.nanoTime() - startTime) / 1e6);
+        LayoutSnapshot open = LayoutSnapshot.of(products, width, height, null);
+
+        for (PathEngine engine : new PathEngine[] { PathFinder.DIJKSTRA, PathFinder.A_STAR }) {
+            query(planned, engine, "floor plan", products.size());
+            query(open, engine, "open grid", products.size());
+        }
+    }
+
+    // Same queries on every layout, the first few only warm up
+    private static void query(LayoutSnapshot layout, PathEngine engine, String label, int productCount) {
+        Random random = new Random(7);
+        long nanos = 0;
+        long expanded = 0;
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            PathFinder.PathResult result = PathFinder.findShortestPath(layout, random.nextInt(productCount),
+                    "P" + random.nextInt(2000), engine);
+            if (i >= WARMUP) {
+                nanos += result.stats.searchNanos;
+                expanded += result.stats.expanded;
+                found += result.path.isEmpty() ? 0 : 1;
+            }
+        }
+        int measured = QUERIES - WARMUP;
+        System.out.printf("%s on the %s: %.2f ms and %d expanded per query, %d/%d found%n", engine.getName(),
+                label, nanos / 1e6 / measured, expanded / measured, found, measured);
+    }
+
+    private static void writePlan(Path file, int size) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            char[] row = new char[size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    row[x] = cell(x, y, size);
+                }
+                out.write(row);
+                out.write('\n');
+            }
+        }
+    }
+
+    private static char cell(int x, int y, int size) {
+        if (x == 0 || y == 0 || x == size - 1 || y == size - 1) {
+            return '.';
+        }
+        if (y % 25 == 0) {
+            return y % 100 == 50 ? '3' : '.'; // cross aisle, every fourth one congested
+        }
+        switch (x % 4) {
+            case 1:
+            case 2:
+                return '#';
+            case 3:
+                return '.';
+            default:
+                return (x / 4) % 2 == 0 ? 'v' : '^';
+        }
+    }
+}
@@ -0,0 +1,143 @@
+// Cells a new bin could go on: inside the floor, not a rack or wall, and not holding a bin. One
+// bit per cell in row-major longs, so a row is searched 64 cells at a time with
+// numberOfTrailingZeros, plus free counts per row and per 64 x 64 block so full rows and blocks
+// are skipped without reading their words.
+public class FreeCellIndex {
+    public static final int BLOCK_SHIFT = 6;
+    public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final int width;
+    private final int height;
+    private final int words; // longs per row, one per block column
+    private final long[] bits; // bit x & 63 of word y * words + (x >> 6) set when (x, y) is free
+    private final int[] rowFree;
+    private final int[] blockFree; // (y >> 6) * words + (x >> 6)
+    private int freeCount;
+
+    public FreeCellIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = (width + 63) >> 6;
+        this.bits = new long[words * height];
+        this.rowFree = new int[height];
+        this.blockFree = new int[words * ((height + BLOCK_SIZE - 1) >> BLOCK_SHIFT)];
+    }
+
+    // Index of every storable, empty cell of the grid
+    public static FreeCellIndex of(ProductGrid grid) {
+        FreeCellIndex index = new FreeCellIndex(grid.getGridWidth(), grid.getGridHeight());
+        for (int y = 0; y < index.height; y++) {
+            for (int x = 0; x < index.width; x++) {
+                if (grid.isStorable(x, y)) {
+                    index.setFree(x, y, true);
+                }
+            }
+        }
+        for (Product product : grid.getAllProducts()) {
+            index.setFree(product.x, product.y, false);
+        }
+        return index;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    public boolean isFree(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && (bits[y * words + (x >> 6)] & (1L << x)) != 0;
+    }
+
+    public void setFree(int x, int y, boolean free) {
+        int word = y * words + (x >> 6);
+        long bit = 1L << x;
+        if (((bits[word] & bit) != 0) == free) {
+            return;
+        }
+        bits[word] ^= bit;
+        int change = free ? 1 : -1;
+        rowFree[y] += change;
+        blockFree[(y >> BLOCK_SHIFT) * words + (x >> 6)] += change;
+        freeCount += change;
+    }
+
+    // Free cells in the 64 x 64 block at block column bx, block row by
+    public int getBlockFree(int bx, int by) {
+        return blockFree[by * words + bx];
+    }
+
+    public int getBlockColumns() {
+        return words;
+    }
+
+    public int getBlockRows() {
+        return (height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+    }
+
+    // Bits of the free cells of word w in row y
+    long word(int y, int w) {
+        return bits[y * words + w];
+    }
+
+    // Free cell closest to (x, y), a cell of the floor, by the larger of |dx| and |dy|: the square
+    // rings the old ring search walked. Packed as y * width + x, or -1 when the floor is full.
+    // Rows are taken outwards from y and each gives its closest free column directly, so the
+    // search stops at the first row farther away than the best cell found.
+    public int nearest(int x, int y) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int dy = 0; dy < bestDistance && (y - dy >= 0 || y + dy < height); dy++) {
+            for (int side = dy == 0 ? 1 : 0; side < 2; side++) {
+                int row = side == 0 ? y - dy : y + dy;
+                if (row < 0 || row >= height || rowFree[row] == 0) {
+                    continue;
+                }
+                int column = nearestInRow(row, x, bestDistance);
+                if (column != -1 && Math.max(dy, Math.abs(column - x)) < bestDistance) {
+                    bestDistance = Math.max(dy, Math.abs(column - x));
+                    best = row * width + column;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Free column of row closest to x and less than limit away from it, or -1
+    private int nearestInRow(int row, int x, int limit) {
+        int base = row * words;
+        int home = x >> 6;
+        int right = -1;
+        int left = -1;
+        // At or right of x
+        long mask = -1L << x;
+        for (int w = home; w < words && right == -1; w++, mask = -1L) {
+            if ((w << 6) - x >= limit) {
+                break;
+            }
+            long free = bits[base + w] & mask;
+            if (free != 0) {
+                right = (w << 6) + Long.numberOfTrailingZeros(free);
+            }
+        }
+        // Left of x
+        mask = (1L << x) - 1;
+        for (int w = home; w >= 0 && left == -1; w--, mask = -1L) {
+            if (x - ((w << 6) + 63) >= limit) {
+                break;
+            }
+            long free = bits[base + w] & mask;
+            if (free != 0) {
+                left = (w << 6) + 63 - Long.numberOfLeadingZeros(free);
+            }
+        }
+        int column = right == -1 || (left != -1 && x - left < right - x) ? left : right;
+        return column == -1 || Math.abs(column - x) >= limit ? -1 : column;
+    }
+}
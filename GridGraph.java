@@ -0,0 +1,240 @@
+import java.util.*;
+
+public class GridGraph {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+
+    // One bit per cell, rows padded to whole words so a row can be scanned word by word
+    private final long[] blocked;
+
+    // Racks, one-way aisles and step costs, null for a plain open floor
+    private final FloorPlan floor;
+
+    public GridGraph(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.blocked = new long[wordsPerRow * height];
+        this.floor = null;
+    }
+
+    // A grid over a floor plan, racks start out blocked so grid-only code never walks through them
+    public GridGraph(FloorPlan floor) {
+        this.width = floor.getWidth();
+        this.height = floor.getHeight();
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.blocked = new long[wordsPerRow * height];
+        this.floor = floor;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (floor.isWall(x, y)) {
+                    setBlocked(x, y, true);
+                }
+            }
+        }
+    }
+
+    // Builds the lattice for a product list, every bin becomes a blocked shelf cell
+    public static GridGraph fromProducts(List<Product> products, int width, int height) {
+        return fromProducts(products, width, height, null);
+    }
+
+    // Same over a floor plan when there is one, which then decides the size
+    public static GridGraph fromProducts(List<Product> products, int width, int height, FloorPlan floor) {
+        GridGraph graph = floor == null ? new GridGraph(width, height) : new GridGraph(floor);
+        for (Product p : products) {
+            if (graph.contains(p.x, p.y)) {
+                graph.setBlocked(p.x, p.y, true);
+            }
+        }
+        return graph;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return width * height;
+    }
+
+    public FloorPlan getFloorPlan() {
+        return floor;
+    }
+
+    // True when every step costs 1 both ways, what JPS, HPA* and the distance tables assume
+    public boolean isUniform() {
+        return floor == null || floor.isUniform();
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public int cellOf(int x, int y) {
+        return y * width + x;
+    }
+
+    public int xOf(int cell) {
+        return cell % width;
+    }
+
+    public int yOf(int cell) {
+        return cell / width;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        return (blocked[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public boolean isBlocked(int cell) {
+        return isBlocked(cell % width, cell / width);
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    // 64 cells of a row as bits, bit i is column word * 64 + i
+    public long getBlockedWord(int y, int word) {
+        return blocked[y * wordsPerRow + word];
+    }
+
+    public void setBlocked(int x, int y, boolean value) {
+        int word = y * wordsPerRow + (x >>> 6);
+        if (value) {
+            blocked[word] |= 1L << x;
+        } else {
+            blocked[word] &= ~(1L << x);
+        }
+    }
+
+    // Writes the 4-neighbours of a cell into out and returns how many there are
+    public int neighbours(int cell, int[] out) {
+        int x = cell % width;
+        int y = cell / width;
+        int count = 0;
+        if (x > 0)
+            out[count++] = cell - 1;
+        if (x < width - 1)
+            out[count++] = cell + 1;
+        if (y > 0)
+            out[count++] = cell - width;
+        if (y < height - 1)
+            out[count++] = cell + width;
+        return count;
+    }
+
+    // Writes the cells one step away and what each step costs into out and weights, and returns
+    // how many there are. Reads the floor plan's edges when there is one, bins are left to the caller.
+    public int edges(int cell, int[] out, int[] weights) {
+        if (floor == null) {
+            int count = neighbours(cell, out);
+            for (int k = 0; k < count; k++) {
+                weights[k] = 1;
+            }
+            return count;
+        }
+        int count = 0;
+        int end = floor.firstEdge(cell + 1);
+        for (int e = floor.firstEdge(cell); e < end; e++) {
+            out[count] = floor.edgeTarget(e);
+            weights[count++] = floor.edgeWeight(e);
+        }
+        return count;
+    }
+
+    // Cost of stepping from one cell to a neighbour, -1 if the floor plan does not allow it
+    public int stepCost(int from, int to) {
+        if (floor == null) {
+            return 1;
+        }
+        int end = floor.firstEdge(from + 1);
+        for (int e = floor.firstEdge(from); e < end; e++) {
+            if (floor.edgeTarget(e) == to) {
+                return floor.edgeWeight(e);
+            }
+        }
+        return -1;
+    }
+
+    public static int manhattan(int x1, int y1, int x2, int y2) {
+        return Math.abs(x2 - x1) + Math.abs(y2 - y1);
+    }
+
+    // Walking distances from a cell, Integer.MAX_VALUE where unreachable. Bins can be walked into
+    // but not through, the source itself may be a bin. Breadth-first on a uniform floor, otherwise
+    // Dijkstra along the floor plan's one-way aisles and step costs.
+    public void distancesFrom(int sourceCell, int[] dist, int[] queue) {
+        if (!isUniform()) {
+            weightedDistances(sourceCell, dist, false);
+            return;
+        }
+        Arrays.fill(dist, 0, getCellCount(), Integer.MAX_VALUE);
+        int[] neighbours = new int[4];
+        int head = 0;
+        int tail = 0;
+        dist[sourceCell] = 0;
+        queue[tail++] = sourceCell;
+        while (head < tail) {
+            int current = queue[head++];
+            if (current != sourceCell && isBlocked(current)) {
+                continue;
+            }
+            int count = neighbours(current, neighbours);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (dist[next] == Integer.MAX_VALUE) {
+                    dist[next] = dist[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    // Walking distances to a cell from every other one, Integer.MAX_VALUE where it cannot be
+    // reached, same rules as distancesFrom. Equal to distancesFrom on a uniform floor; on a floor
+    // plan the aisles are followed backwards, the heuristic a search towards the cell needs.
+    public void distancesTo(int targetCell, int[] dist, int[] queue) {
+        if (isUniform()) {
+            distancesFrom(targetCell, dist, queue);
+        } else {
+            weightedDistances(targetCell, dist, true);
+        }
+    }
+
+    // Dijkstra out of a cell along the floor plan's edges, or into it when reverse is set.
+    // Only the search's own cell may be a bin, any other bin ends the walk.
+    private void weightedDistances(int cell, int[] dist, boolean reverse) {
+        Arrays.fill(dist, 0, getCellCount(), Integer.MAX_VALUE);
+        IndexedMinHeap heap = new IndexedMinHeap(getCellCount());
+        int[] next = new int[4];
+        int[] weights = new int[4];
+        dist[cell] = 0;
+        heap.insert(cell, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            if (current != cell && isBlocked(current)) {
+                continue;
+            }
+            int count = reverse ? neighbours(current, next) : edges(current, next, weights);
+            for (int k = 0; k < count; k++) {
+                // Backwards, a neighbour counts if the plan lets it step onto current
+                int weight = reverse ? stepCost(next[k], current) : weights[k];
+                if (weight < 0) {
+                    continue;
+                }
+                int d = dist[current] + weight;
+                if (d < dist[next[k]]) {
+                    dist[next[k]] = d;
+                    heap.insertOrDecrease(next[k], d);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+// Products kept as objects, the caller's own Product instances are stored and handed back.
+// Every index is packed and remembers where each id sits in it, so a removal moves the last
+// entry into the hole instead of searching and shifting: add and remove are O(1).
+public class HeapProductStore implements ProductStore {
+    // Ids of one name code, packed
+    private static class IdList {
+        int[] ids = new int[4];
+        int size;
+    }
+
+    // Bins by cell, allocated only where the floor holds some
+    private final ChunkedGrid<Product> grid;
+
+    // Every product, packed, and the index of each id in it
+    private final List<Product> allProducts = new ArrayList<>();
+    private final IntIntMap positionById = new IntIntMap(16);
+
+    // Ids by name code, and the index of each id in its name's list
+    private IdList[] idsByCode = new IdList[16];
+    private final IntIntMap namePositionById = new IntIntMap(16);
+
+    public HeapProductStore(int width, int height) {
+        this.grid = new ChunkedGrid<>(width, height);
+    }
+
+    @Override
+    public void add(Product product) {
+        if (positionById.get(product.id, -1) != -1) {
+            remove(product.id); // same as a map put, the newer record wins
+        }
+        grid.set(product.x, product.y, product);
+        positionById.put(product.id, allProducts.size());
+        allProducts.add(product);
+
+        int code = product.nameCode;
+        if (code >= idsByCode.length) {
+            idsByCode = Arrays.copyOf(idsByCode, Math.max(code + 1, idsByCode.length * 2));
+        }
+        IdList ids = idsByCode[code];
+        if (ids == null) {
+            ids = idsByCode[code] = new IdList();
+        }
+        if (ids.size == ids.ids.length) {
+            ids.ids = Arrays.copyOf(ids.ids, ids.size * 2);
+        }
+        namePositionById.put(product.id, ids.size);
+        ids.ids[ids.size++] = product.id;
+    }
+
+    @Override
+    public Product remove(int id) {
+        int position = positionById.get(id, -1);
+        if (position == -1) {
+            return null;
+        }
+        Product product = allProducts.get(position);
+        Product last = allProducts.remove(allProducts.size() - 1);
+        if (last != product) {
+            allProducts.set(position, last);
+            positionById.put(last.id, position);
+        }
+        positionById.remove(id);
+        grid.set(product.x, product.y, null);
+
+        IdList ids = idsByCode[product.nameCode];
+        int namePosition = namePositionById.get(id, -1);
+        int moved = ids.ids[--ids.size];
+        if (moved != id) {
+            ids.ids[namePosition] = moved;
+            namePositionById.put(moved, namePosition);
+        }
+        namePositionById.remove(id);
+        return product;
+    }
+
+    @Override
+    public void move(int id, int x, int y) {
+        Product product = getById(id);
+        grid.set(product.x, product.y, null);
+        product.x = x;
+        product.y = y;
+        grid.set(x, y, product);
+    }
+
+    @Override
+    public void setQuantity(int id, int quantity) {
+        getById(id).quantity = quantity;
+    }
+
+    @Override
+    public Product getById(int id) {
+        int position = positionById.get(id, -1);
+        return position == -1 ? null : allProducts.get(position);
+    }
+
+    @Override
+    public Product getAt(int x, int y) {
+        return grid.get(x, y);
+    }
+
+    @Override
+    public List<Product> getInArea(int startX, int startY, int endX, int endY) {
+        List<Product> found = new ArrayList<>();
+        grid.forEachInArea(startX, startY, endX, endY, found::add);
+        return found;
+    }
+
+    // The stored Products themselves, nothing is built either way
+    @Override
+    public Product peekById(int id) {
+        return getById(id);
+    }
+
+    @Override
+    public Product peekAt(int x, int y) {
+        return getAt(x, y);
+    }
+
+    @Override
+    public List<Product> getByName(String name) {
+        int code = ProductNames.find(name);
+        IdList ids = code == -1 || code >= idsByCode.length ? null : idsByCode[code];
+        if (ids == null || ids.size == 0) {
+            return new ArrayList<>();
+        }
+        List<Product> found = new ArrayList<>(ids.size);
+        for (int i = 0; i < ids.size; i++) {
+            found.add(getById(ids.ids[i]));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Product> getAll() {
+        return new ArrayList<>(allProducts);
+    }
+
+    @Override
+    public void forEach(Consumer<Product> action) {
+        allProducts.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return allProducts.size();
+    }
+
+    @Override
+    public void clear() {
+        grid.clear();
+        allProducts.clear();
+        positionById.clear();
+        Arrays.fill(idsByCode, null);
+        namePositionById.clear();
+    }
+}
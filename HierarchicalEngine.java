@@ -0,0 +1,564 @@
+import java.util.*;
+
+// Keeps the cluster abstraction and its scratch between searches, so an instance serves one thread
+// at a time. PathFinder.HIERARCHICAL gives each thread its own.
+public class HierarchicalEngine implements PathEngine {
+    // Open border runs longer than this get an entrance at each end instead of one in the middle
+    private static final int LONG_ENTRANCE = 6;
+
+    private final int clusterSize;
+
+    // Abstraction of the floor last searched, clusters are rebuilt only where cells changed
+    private int width = -1;
+    private int height = -1;
+    private int clustersX;
+    private int clustersY;
+    private long[] mirror; // blocked words the abstraction was built from
+    private int[][] entrances; // cluster -> open border cells that lead into a neighbouring cluster
+    private int[][] intraDist; // cluster -> k*k walking distances between its entrances inside the cluster
+    private int[] entranceIndex; // cell -> index in its cluster's entrance list, -1 otherwise
+    private boolean[] dirty;
+    private int[] dirtyList;
+    private int dirtyCount;
+    private long refreshedClusters;
+
+    // Scratch for searches confined to one cluster, indexed by (x - x0) + (y - y0) * clusterSize
+    private final int[] localDist;
+    private final int[] localPrev;
+    private final int[] localQueue;
+
+    // Walking distance from an entrance to the nearest target inside the entrance's cluster
+    private int[] goalCost = new int[0];
+    private int[] goalStamp = new int[0];
+    private int goalGeneration;
+
+    // Results of the last nearestTarget call, and where the search leading to the goal started
+    private int nearestDistance;
+    private int nearestVia;
+    private int goalStart;
+
+    private int[] route = new int[64];
+
+    public HierarchicalEngine(int clusterSize) {
+        this.clusterSize = clusterSize;
+        int area = clusterSize * clusterSize;
+        localDist = new int[area];
+        localPrev = new int[area];
+        localQueue = new int[area];
+    }
+
+    @Override
+    public String getName() {
+        return "HPA*";
+    }
+
+    // Number of clusters rebuilt so far, a full build counts every cluster
+    public long getRefreshedClusters() {
+        return refreshedClusters;
+    }
+
+    // Searches the entrance graph first and then refines each hop inside its cluster.
+    // Routes are near-optimal rather than exact, hops never leave the clusters they connect.
+    @Override
+    public int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        if (targets.isEmpty()) {
+            return -1;
+        }
+        synchronize(grid);
+        if (targets.contains(sourceCell)) {
+            context.setDistance(sourceCell, 0, -1);
+            return sourceCell;
+        }
+
+        int cellCount = grid.getCellCount();
+        int goal = cellCount; // virtual node joined to every entrance that can reach a target
+        context.reset(cellCount + 1);
+        IndexedMinHeap heap = context.getHeap();
+        int[] neighbours = context.getNeighbourBuffer();
+        computeGoalCosts(grid, targets);
+
+        // Leave through any entrance of the source's cluster, or of a cluster the source borders,
+        // or walk straight to a target without crossing another entrance
+        int sourceCluster = clusterOf(grid.xOf(sourceCell), grid.yOf(sourceCell));
+        context.setDistance(sourceCell, 0, -1);
+        goalStart = -1;
+        startFrom(grid, context, targets, sourceCell, sourceCell, 0);
+        int[] around = Arrays.copyOf(neighbours, grid.neighbours(sourceCell, neighbours));
+        for (int next : around) {
+            if (!grid.isBlocked(next) && clusterOf(grid.xOf(next), grid.yOf(next)) != sourceCluster) {
+                startFrom(grid, context, targets, sourceCell, next, 1);
+            }
+        }
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            if (current == goal) {
+                return refine(grid, sourceCell, targets, context);
+            }
+            context.markVisited(current);
+            int currentDist = context.getDistance(current);
+            int cluster = clusterOf(grid.xOf(current), grid.yOf(current));
+            int index = entranceIndex[current];
+            int[] members = entrances[cluster];
+            int[] table = intraDist[cluster];
+            int k = members.length;
+            for (int j = 0; j < k; j++) {
+                int d = table[index * k + j];
+                if (j != index && d != Integer.MAX_VALUE) {
+                    relax(grid, context, targets, members[j], currentDist + d, current);
+                }
+            }
+            int count = grid.neighbours(current, neighbours);
+            for (int n = 0; n < count; n++) {
+                int next = neighbours[n];
+                if (entranceIndex[next] >= 0 && clusterOf(grid.xOf(next), grid.yOf(next)) != cluster) {
+                    relax(grid, context, targets, next, currentDist + 1, current);
+                }
+            }
+            if (goalStamp[current] == goalGeneration) {
+                relax(grid, context, targets, goal, currentDist + goalCost[current], current);
+            }
+        }
+        return -1;
+    }
+
+    // Seeds the entrance search from a start cell offset steps away from the source
+    private void startFrom(GridGraph grid, SearchContext context, TargetSet targets, int sourceCell, int start,
+            int offset) {
+        int goal = grid.getCellCount();
+        int cluster = clusterOf(grid.xOf(start), grid.yOf(start));
+        int target = nearestTarget(grid, cluster, start, targets);
+        if (target != -1 && offset + nearestDistance < context.getDistance(goal)) {
+            relax(grid, context, targets, goal, offset + nearestDistance, sourceCell);
+            goalStart = start;
+        }
+        for (int e : entrances[cluster]) {
+            int d = localDist[localIndex(cluster, e)];
+            if (d != Integer.MAX_VALUE) {
+                relax(grid, context, targets, e, offset + d, sourceCell);
+            }
+        }
+    }
+
+    private void relax(GridGraph grid, SearchContext context, TargetSet targets, int node, int distance,
+            int previous) {
+        if (context.isVisited(node) || distance >= context.getDistance(node)) {
+            return;
+        }
+        context.setDistance(node, distance, previous);
+        int estimate = node == grid.getCellCount() ? 0 : targets.estimate(grid.xOf(node), grid.yOf(node));
+        context.getHeap().insertOrDecrease(node, distance + estimate);
+    }
+
+    // Expands the abstract route into cells and leaves it in the context as a predecessor chain
+    private int refine(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        int hops = 0;
+        for (int node = context.getPrevious(grid.getCellCount()); node != -1; node = context.getPrevious(node)) {
+            route = ensure(route, hops + 1);
+            route[hops++] = node;
+        }
+        int[] abstractRoute = new int[hops];
+        for (int i = 0; i < hops; i++) {
+            abstractRoute[i] = route[hops - 1 - i];
+        }
+
+        context.reset(grid.getCellCount());
+        int length = 0;
+        route = ensure(route, 1);
+        route[length++] = sourceCell;
+        context.setDistance(sourceCell, 0, -1);
+        for (int i = 1; i < hops; i++) {
+            int from = abstractRoute[i - 1];
+            int to = abstractRoute[i];
+            int cluster = clusterOf(grid.xOf(to), grid.yOf(to));
+            if (from == sourceCell) {
+                int start = startCell(grid, sourceCell, cluster);
+                length = append(context, length, start);
+                localSearch(grid, cluster, start, null);
+                length = appendLocalPath(grid, context, length, cluster, to);
+            } else if (clusterOf(grid.xOf(from), grid.yOf(from)) != cluster) {
+                length = append(context, length, to);
+            } else {
+                localSearch(grid, cluster, from, null);
+                length = appendLocalPath(grid, context, length, cluster, to);
+            }
+        }
+        int last = hops == 1 ? goalStart : abstractRoute[hops - 1];
+        length = append(context, length, last);
+        int cluster = clusterOf(grid.xOf(last), grid.yOf(last));
+        int target = nearestTarget(grid, cluster, last, targets);
+        if (nearestVia >= 0) {
+            length = appendLocalPath(grid, context, length, cluster, nearestVia);
+        } else {
+            length = appendLocalPath(grid, context, length, cluster, target);
+        }
+        length = append(context, length, target);
+
+        for (int i = 0; i < length; i++) {
+            context.setDistance(route[i], i, i == 0 ? -1 : route[i - 1]);
+        }
+        return target;
+    }
+
+    // The cell the route leaves the source by to reach the given cluster, the source itself when
+    // it lies inside that cluster
+    private int startCell(GridGraph grid, int sourceCell, int cluster) {
+        int x = grid.xOf(sourceCell);
+        int y = grid.yOf(sourceCell);
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            int ny = y + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+            if (grid.contains(nx, ny) && !grid.isBlocked(nx, ny) && clusterOf(nx, ny) == cluster
+                    && clusterOf(x, y) != cluster) {
+                return grid.cellOf(nx, ny);
+            }
+        }
+        return sourceCell;
+    }
+
+    // Nearest target from fromCell without leaving the cluster, except for a final step across its
+    // border into a target next door. Leaves the walking distance in nearestDistance and the border
+    // cell stepped out of in nearestVia (-1 when the target is inside). Returns -1 if none is reachable.
+    private int nearestTarget(GridGraph grid, int cluster, int fromCell, TargetSet targets) {
+        int best = localSearch(grid, cluster, fromCell, targets);
+        nearestDistance = best == -1 ? Integer.MAX_VALUE : localDist[localIndex(cluster, best)];
+        nearestVia = -1;
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int x1 = Math.min(width, x0 + clusterSize);
+        int y1 = Math.min(height, y0 + clusterSize);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                if (x != x0 && x != x1 - 1 && y != y0 && y != y1 - 1) {
+                    x = x1 - 2; // jump over the cluster's interior to the far border
+                    continue;
+                }
+                int cell = grid.cellOf(x, y);
+                int d = localDist[(x - x0) + (y - y0) * clusterSize];
+                if (d == Integer.MAX_VALUE || d + 1 >= nearestDistance || (cell != fromCell && grid.isBlocked(x, y))) {
+                    continue;
+                }
+                int outside = outsideTarget(grid, targets, x, y, x0, y0, x1, y1);
+                if (outside != -1) {
+                    best = outside;
+                    nearestDistance = d + 1;
+                    nearestVia = cell;
+                }
+            }
+        }
+        return best;
+    }
+
+    // A target next to (x, y) that lies outside the cluster bounds, or -1
+    private int outsideTarget(GridGraph grid, TargetSet targets, int x, int y, int x0, int y0, int x1, int y1) {
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            int ny = y + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+            if ((nx < x0 || nx >= x1 || ny < y0 || ny >= y1) && grid.contains(nx, ny) && targets.contains(nx, ny)) {
+                return grid.cellOf(nx, ny);
+            }
+        }
+        return -1;
+    }
+
+    // Appends the local predecessor chain ending at cell, the route's last cell is its start
+    private int appendLocalPath(GridGraph grid, SearchContext context, int length, int cluster, int cell) {
+        int steps = localDist[localIndex(cluster, cell)];
+        int[] segment = new int[steps];
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int local = localIndex(cluster, cell);
+        for (int i = steps - 1; i >= 0; i--) {
+            segment[i] = grid.cellOf(x0 + local % clusterSize, y0 + local / clusterSize);
+            local = localPrev[local];
+        }
+        for (int c : segment) {
+            length = append(context, length, c);
+        }
+        return length;
+    }
+
+    // Adds a cell to the route, cutting out the loop if the route already passed through it
+    private int append(SearchContext context, int length, int cell) {
+        int seen = context.getDistance(cell);
+        if (seen < length && route[seen] == cell) {
+            return seen + 1;
+        }
+        route = ensure(route, length + 1);
+        route[length] = cell;
+        context.setDistance(cell, length, -1);
+        return length + 1;
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    // Multi-source search from the targets in and around every cluster that touches one, out to its entrances
+    private void computeGoalCosts(GridGraph grid, TargetSet targets) {
+        int cellCount = grid.getCellCount();
+        if (goalCost.length < cellCount) {
+            goalCost = new int[cellCount];
+            goalStamp = new int[cellCount];
+            goalGeneration = 0;
+        }
+        goalGeneration++;
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < targets.size(); i++) {
+            int x = targets.getX(i);
+            int y = targets.getY(i);
+            // A target on a border can also be reached from the cluster next door
+            for (int dir = 0; dir < 5; dir++) {
+                int nx = x + (dir == 1 ? -1 : dir == 2 ? 1 : 0);
+                int ny = y + (dir == 3 ? -1 : dir == 4 ? 1 : 0);
+                if (!grid.contains(nx, ny)) {
+                    continue;
+                }
+                int cluster = clusterOf(nx, ny);
+                if (!seen.add(cluster)) {
+                    continue;
+                }
+                localSearch(grid, cluster, -1, targets);
+                for (int e : entrances[cluster]) {
+                    int d = localDist[localIndex(cluster, e)];
+                    if (d != Integer.MAX_VALUE) {
+                        goalCost[e] = d;
+                        goalStamp[e] = goalGeneration;
+                    }
+                }
+            }
+        }
+    }
+
+    // Breadth-first search confined to one cluster. Starts from fromCell, or from every target in and
+    // next to the cluster when fromCell is -1. Bins are only entered when they are targets, the start may be a bin.
+    // Returns the nearest target reached from fromCell, or -1.
+    private int localSearch(GridGraph grid, int cluster, int fromCell, TargetSet targets) {
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int x1 = Math.min(width, x0 + clusterSize);
+        int y1 = Math.min(height, y0 + clusterSize);
+        Arrays.fill(localDist, Integer.MAX_VALUE);
+        int head = 0;
+        int tail = 0;
+        if (fromCell >= 0) {
+            int start = localIndex(cluster, fromCell);
+            localDist[start] = 0;
+            localPrev[start] = -1;
+            localQueue[tail++] = start;
+        } else {
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    if (targets.contains(x, y)) {
+                        int start = (x - x0) + (y - y0) * clusterSize;
+                        localDist[start] = 0;
+                        localPrev[start] = -1;
+                        localQueue[tail++] = start;
+                    }
+                }
+            }
+            // Open border cells next to a target outside start one step out
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    int start = (x - x0) + (y - y0) * clusterSize;
+                    if (localDist[start] == Integer.MAX_VALUE && !grid.isBlocked(x, y)
+                            && outsideTarget(grid, targets, x, y, x0, y0, x1, y1) != -1) {
+                        localDist[start] = 1;
+                        localPrev[start] = -1;
+                        localQueue[tail++] = start;
+                    }
+                }
+            }
+        }
+        int found = -1;
+        boolean multiSource = fromCell < 0;
+        while (head < tail) {
+            int current = localQueue[head++];
+            int cx = x0 + current % clusterSize;
+            int cy = y0 + current / clusterSize;
+            boolean blocked = grid.isBlocked(cx, cy);
+            if (!multiSource && current != localQueue[0] && blocked) {
+                if (found == -1) {
+                    found = grid.cellOf(cx, cy); // only targets are ever queued while blocked
+                }
+                continue;
+            }
+            if (multiSource && blocked && localDist[current] != 0) {
+                continue;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = cx + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+                int ny = cy + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1) {
+                    continue;
+                }
+                int next = (nx - x0) + (ny - y0) * clusterSize;
+                if (localDist[next] != Integer.MAX_VALUE) {
+                    continue;
+                }
+                if (grid.isBlocked(nx, ny) && (multiSource || targets == null || !targets.contains(nx, ny))) {
+                    continue;
+                }
+                localDist[next] = localDist[current] + 1;
+                localPrev[next] = current;
+                localQueue[tail++] = next;
+            }
+        }
+        return found;
+    }
+
+    private int localIndex(int cluster, int cell) {
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        return (cell % width - x0) + (cell / width - y0) * clusterSize;
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    // Brings the abstraction in line with the grid, rebuilding only clusters whose cells changed
+    private void synchronize(GridGraph grid) {
+        int wordsPerRow = grid.getWordsPerRow();
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            width = grid.getWidth();
+            height = grid.getHeight();
+            clustersX = (width + clusterSize - 1) / clusterSize;
+            clustersY = (height + clusterSize - 1) / clusterSize;
+            int clusterCount = clustersX * clustersY;
+            mirror = new long[wordsPerRow * height];
+            entrances = new int[clusterCount][0];
+            intraDist = new int[clusterCount][0];
+            entranceIndex = new int[width * height];
+            Arrays.fill(entranceIndex, -1);
+            dirty = new boolean[clusterCount];
+            dirtyList = new int[clusterCount];
+            dirtyCount = 0;
+            for (int y = 0; y < height; y++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    mirror[y * wordsPerRow + w] = grid.getBlockedWord(y, w);
+                }
+            }
+            for (int c = 0; c < clusterCount; c++) {
+                markDirty(c);
+            }
+        } else {
+            for (int y = 0; y < height; y++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long word = grid.getBlockedWord(y, w);
+                    long changed = mirror[y * wordsPerRow + w] ^ word;
+                    mirror[y * wordsPerRow + w] = word;
+                    while (changed != 0) {
+                        cellChanged(w * 64 + Long.numberOfTrailingZeros(changed), y);
+                        changed &= changed - 1;
+                    }
+                }
+            }
+        }
+
+        // Entrances of every dirty cluster first, intra distances only depend on a cluster's own list
+        for (int i = 0; i < dirtyCount; i++) {
+            rebuildEntrances(grid, dirtyList[i]);
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            rebuildDistances(grid, dirtyList[i]);
+            dirty[dirtyList[i]] = false;
+        }
+        refreshedClusters += dirtyCount;
+        dirtyCount = 0;
+    }
+
+    // A changed cell invalidates its cluster, and the neighbour across the border if it sits on one
+    private void cellChanged(int x, int y) {
+        int cx = x / clusterSize;
+        int cy = y / clusterSize;
+        markDirty(cy * clustersX + cx);
+        if (x % clusterSize == 0 && cx > 0)
+            markDirty(cy * clustersX + cx - 1);
+        if (x % clusterSize == clusterSize - 1 && cx < clustersX - 1)
+            markDirty(cy * clustersX + cx + 1);
+        if (y % clusterSize == 0 && cy > 0)
+            markDirty((cy - 1) * clustersX + cx);
+        if (y % clusterSize == clusterSize - 1 && cy < clustersY - 1)
+            markDirty((cy + 1) * clustersX + cx);
+    }
+
+    private void markDirty(int cluster) {
+        if (!dirty[cluster]) {
+            dirty[cluster] = true;
+            dirtyList[dirtyCount++] = cluster;
+        }
+    }
+
+    private void rebuildEntrances(GridGraph grid, int cluster) {
+        for (int e : entrances[cluster]) {
+            entranceIndex[e] = -1;
+        }
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+        int x0 = cx * clusterSize;
+        int y0 = cy * clusterSize;
+        int x1 = Math.min(width, x0 + clusterSize);
+        int y1 = Math.min(height, y0 + clusterSize);
+        List<Integer> found = new ArrayList<>();
+        if (cx > 0)
+            borderEntrances(grid, x0, y0, -1, 0, 0, 1, y1 - y0, found);
+        if (cx < clustersX - 1)
+            borderEntrances(grid, x1 - 1, y0, 1, 0, 0, 1, y1 - y0, found);
+        if (cy > 0)
+            borderEntrances(grid, x0, y0, 0, -1, 1, 0, x1 - x0, found);
+        if (cy < clustersY - 1)
+            borderEntrances(grid, x0, y1 - 1, 0, 1, 1, 0, x1 - x0, found);
+
+        int[] cells = new int[found.size()];
+        int count = 0;
+        for (int cell : found) {
+            if (entranceIndex[cell] < 0) {
+                entranceIndex[cell] = count;
+                cells[count++] = cell;
+            }
+        }
+        entrances[cluster] = Arrays.copyOf(cells, count);
+    }
+
+    // Scans one border from (x, y) along (stepX, stepY). Each run of open cell pairs across the
+    // border becomes one entrance, or two for long runs. Both clusters scan a shared border in the
+    // same direction, so they agree on where its entrances are.
+    private void borderEntrances(GridGraph grid, int x, int y, int acrossX, int acrossY, int stepX, int stepY,
+            int length, List<Integer> found) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int ax = x + i * stepX;
+            int ay = y + i * stepY;
+            boolean open = i < length && !grid.isBlocked(ax, ay) && !grid.isBlocked(ax + acrossX, ay + acrossY);
+            if (open) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+            } else if (runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 > LONG_ENTRANCE) {
+                    found.add(grid.cellOf(x + runStart * stepX, y + runStart * stepY));
+                    found.add(grid.cellOf(x + runEnd * stepX, y + runEnd * stepY));
+                } else {
+                    int middle = (runStart + runEnd) / 2;
+                    found.add(grid.cellOf(x + middle * stepX, y + middle * stepY));
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void rebuildDistances(GridGraph grid, int cluster) {
+        int[] cells = entrances[cluster];
+        int k = cells.length;
+        int[] table = new int[k * k];
+        for (int i = 0; i < k; i++) {
+            localSearch(grid, cluster, cells[i], null);
+            for (int j = 0; j < k; j++) {
+                table[i * k + j] = localDist[localIndex(cluster, cells[j])];
+            }
+        }
+        intraDist[cluster] = table;
+    }
+}
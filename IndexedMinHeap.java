@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+public class IndexedMinHeap {
+    // A 4-ary heap is shallower than a binary one and keeps siblings on one cache line
+    private static final int ARITY = 4;
+
+    private int[] heap; // heap slot -> node id
+    private int[] pos; // node id -> heap slot, -1 when not queued
+    // node id -> key, longs so a two-part key can be packed as (primary << 32) | secondary
+    private long[] keys;
+    private int size;
+
+    // Operation counters, kept for tuning
+    private long pushes;
+    private long pops;
+    private long decreases;
+    private int peakSize;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[Math.max(capacity, 1)];
+        pos = new int[Math.max(capacity, 1)];
+        keys = new long[Math.max(capacity, 1)];
+        Arrays.fill(pos, -1);
+    }
+
+    // Grows the heap so node ids below capacity can be queued
+    public void ensureCapacity(int capacity) {
+        if (capacity <= pos.length) {
+            return;
+        }
+        int oldLength = pos.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        pos = Arrays.copyOf(pos, capacity);
+        Arrays.fill(pos, oldLength, capacity, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return pos[node] >= 0;
+    }
+
+    public long keyOf(int node) {
+        return keys[node];
+    }
+
+    public void insert(int node, long key) {
+        keys[node] = key;
+        heap[size] = node;
+        pos[node] = size;
+        size++;
+        pushes++;
+        if (size > peakSize) {
+            peakSize = size;
+        }
+        siftUp(size - 1);
+    }
+
+    public void decreaseKey(int node, long key) {
+        keys[node] = key;
+        decreases++;
+        siftUp(pos[node]);
+    }
+
+    // Queues the node, or lowers its key if it is already queued with a larger one
+    public void insertOrDecrease(int node, long key) {
+        if (pos[node] < 0) {
+            insert(node, key);
+        } else if (key < keys[node]) {
+            decreaseKey(node, key);
+        }
+    }
+
+    // Moves a queued node to a new key, larger or smaller
+    public void update(int node, long key) {
+        long old = keys[node];
+        keys[node] = key;
+        if (key < old) {
+            decreases++;
+            siftUp(pos[node]);
+        } else {
+            siftDown(pos[node]);
+        }
+    }
+
+    public void remove(int node) {
+        int slot = pos[node];
+        pos[node] = -1;
+        size--;
+        if (slot < size) {
+            int last = heap[size];
+            heap[slot] = last;
+            pos[last] = slot;
+            siftDown(slot);
+            siftUp(pos[last]);
+        }
+    }
+
+    public int peekMin() {
+        return heap[0];
+    }
+
+    public long peekMinKey() {
+        return keys[heap[0]];
+    }
+
+    public int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        pops++;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // Empties the heap in O(size), positions of nodes never queued are left untouched
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public long getPushes() {
+        return pushes;
+    }
+
+    public long getPops() {
+        return pops;
+    }
+
+    public long getDecreases() {
+        return decreases;
+    }
+
+    // Most nodes queued at once since the counters were last reset
+    public int getPeakSize() {
+        return peakSize;
+    }
+
+    public void resetCounters() {
+        pushes = 0;
+        pops = 0;
+        decreases = 0;
+        peakSize = 0;
+    }
+
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        long key = keys[node];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) / ARITY;
+            int parent = heap[parentSlot];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[slot] = parent;
+            pos[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = node;
+        pos[node] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        long key = keys[node];
+        while (true) {
+            int firstChild = slot * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + ARITY, size);
+            int bestSlot = firstChild;
+            long bestKey = keys[heap[firstChild]];
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                long childKey = keys[heap[c]];
+                if (childKey < bestKey) {
+                    bestKey = childKey;
+                    bestSlot = c;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int child = heap[bestSlot];
+            heap[slot] = child;
+            pos[child] = slot;
+            slot = bestSlot;
+        }
+        heap[slot] = node;
+        pos[node] = slot;
+    }
+}
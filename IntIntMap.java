@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+public class IntIntMap {
+    // Open addressing with linear probing over primitive arrays, like LongIntMap but with int keys
+    // and removal. Integer.MIN_VALUE marks an empty slot and cannot be used as a key.
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected * 2, 16) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Value stored for key, or missing when there is none
+    public int get(int key, int missing) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+            if (k == key) {
+                return values[slot];
+            }
+            if (k == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    public void put(int key, int value) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+            if (k == key) {
+                values[slot] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+        }
+    }
+
+    // Removes key if present. Later entries of the probe run are shifted back into the hole, so no
+    // tombstones are left behind and lookups stay as short as after a fresh insert.
+    public void remove(int key) {
+        int hole = slot(key);
+        while (keys[hole] != key) {
+            if (keys[hole] == EMPTY) {
+                return;
+            }
+            hole = (hole + 1) & mask;
+        }
+        size--;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            // An entry may move back only if the hole is not before its home slot
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.*;
+
+// Jump Point Search against A* on racked floors, where long open aisles let JPS jump over most
+// of the cells A* expands one by one. Targets are names with one or two bins, so the search has
+// to cross the floor.
+//   java JumpPointBenchmark
+// Runs a 50 x 50 and a 1000 x 1000 floor.
+public class JumpPointBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        for (int size : new int[] { 50, 1000 }) {
+            Random random = new Random(8);
+            List<Product> products = BenchmarkSupport.rackedFloor(size, size, 0.9, 20, random);
+            // Every 4000th bin gets a name of its own
+            List<String> rare = new ArrayList<>();
+            for (int i = 0; i < products.size(); i += 4000) {
+                Product p = products.get(i);
+                String name = "U" + i;
+                products.set(i, new Product(p.id, name, p.x, p.y, 1));
+                rare.add(name);
+            }
+            LayoutSnapshot layout = LayoutSnapshot.of(products, size, size);
+            int queries = size <= 50 ? 2000 : 60;
+            PathEngine[] engines = { PathFinder.A_STAR, PathFinder.JUMP_POINT };
+
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] nanos = new long[engines.length];
+                long[] expanded = new long[engines.length];
+                Random query = new Random(round);
+                for (int q = 0; q < queries; q++) {
+                    int source = query.nextInt(products.size());
+                    String target = rare.get(query.nextInt(rare.size()));
+                    for (int e = 0; e < engines.length; e++) {
+                        long startTime = System.nanoTime();
+                        PathFinder.PathResult result = PathFinder.findShortestPath(layout, source, target,
+                                engines[e]);
+                        nanos[e] += System.nanoTime() - startTime;
+                        expanded[e] += result.stats.expanded;
+                    }
+                }
+                System.out.printf("%d x %d, round %d: A* %.1f us %d expanded, JPS %.1f us %d expanded%n", size,
+                        size, round + 1, nanos[0] / 1e3 / queries, expanded[0] / queries, nanos[1] / 1e3 / queries,
+                        expanded[1] / queries);
+            }
+        }
+    }
+}
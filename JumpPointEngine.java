@@ -0,0 +1,182 @@
+public class JumpPointEngine implements PathEngine {
+    @Override
+    public String getName() {
+        return "JPS";
+    }
+
+    // Jump point search for 4-connected grids. Shortest paths are taken to turn vertical as early
+    // as possible, so a horizontal run only branches where a wall behind it forces a turn, while a
+    // vertical run may turn either way at every cell. Only the ends of straight runs enter the heap.
+    @Override
+    public int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        IndexedMinHeap heap = context.getHeap();
+        int width = grid.getWidth();
+
+        context.setDistance(sourceCell, 0, -1);
+        heap.insert(sourceCell, targets.estimate(grid.xOf(sourceCell), grid.yOf(sourceCell)));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            context.markVisited(current);
+            if (targets.contains(current)) {
+                fillStraightRuns(grid, context, current);
+                return current;
+            }
+
+            int x = grid.xOf(current);
+            int y = grid.yOf(current);
+            int parent = context.getPrevious(current);
+            if (parent == -1) {
+                push(grid, targets, context, current, jumpHorizontal(grid, targets, x, y, 1));
+                push(grid, targets, context, current, jumpHorizontal(grid, targets, x, y, -1));
+                push(grid, targets, context, current, jumpVertical(grid, targets, x, y, 1));
+                push(grid, targets, context, current, jumpVertical(grid, targets, x, y, -1));
+            } else if (parent / width == y) {
+                int dx = x > parent % width ? 1 : -1;
+                push(grid, targets, context, current, jumpHorizontal(grid, targets, x, y, dx));
+                for (int dy = -1; dy <= 1; dy += 2) {
+                    if (isForced(grid, targets, x, y, dx, dy)) {
+                        push(grid, targets, context, current, jumpVertical(grid, targets, x, y, dy));
+                    }
+                }
+            } else {
+                int dy = y > parent / width ? 1 : -1;
+                push(grid, targets, context, current, jumpVertical(grid, targets, x, y, dy));
+                push(grid, targets, context, current, jumpHorizontal(grid, targets, x, y, 1));
+                push(grid, targets, context, current, jumpHorizontal(grid, targets, x, y, -1));
+            }
+        }
+        return -1;
+    }
+
+    private static void push(GridGraph grid, TargetSet targets, SearchContext context, int from, int jumpPoint) {
+        if (jumpPoint == -1 || context.isVisited(jumpPoint)) {
+            return;
+        }
+        int x = grid.xOf(jumpPoint);
+        int y = grid.yOf(jumpPoint);
+        int newDist = context.getDistance(from) + GridGraph.manhattan(grid.xOf(from), grid.yOf(from), x, y);
+        if (newDist < context.getDistance(jumpPoint)) {
+            context.setDistance(jumpPoint, newDist, from);
+            context.getHeap().insertOrDecrease(jumpPoint, newDist + targets.estimate(x, y));
+        }
+    }
+
+    // Can be stepped onto: open, or a bin that is a target
+    private static boolean isEnterable(GridGraph grid, TargetSet targets, int x, int y) {
+        return !grid.isBlocked(x, y) || targets.contains(x, y);
+    }
+
+    // Moving horizontally by dx into (x, y), the cell at dy can only be reached by turning here
+    private static boolean isForced(GridGraph grid, TargetSet targets, int x, int y, int dx, int dy) {
+        int side = y + dy;
+        return side >= 0 && side < grid.getHeight() && isEnterable(grid, targets, x, side)
+                && grid.isBlocked(x - dx, side);
+    }
+
+    private static int jumpVertical(GridGraph grid, TargetSet targets, int x, int y, int dy) {
+        while (true) {
+            y += dy;
+            if (y < 0 || y >= grid.getHeight()) {
+                return -1;
+            }
+            if (targets.contains(x, y)) {
+                return grid.cellOf(x, y);
+            }
+            if (grid.isBlocked(x, y)) {
+                return -1;
+            }
+            // Turning is free after a vertical step, so any jump point sideways makes this one
+            if (jumpHorizontal(grid, targets, x, y, 1) != -1 || jumpHorizontal(grid, targets, x, y, -1) != -1) {
+                return grid.cellOf(x, y);
+            }
+        }
+    }
+
+    // Scans a row 64 cells at a time for the first target, wall or forced turn
+    private static int jumpHorizontal(GridGraph grid, TargetSet targets, int x, int y, int dx) {
+        int width = grid.getWidth();
+        int wordsPerRow = grid.getWordsPerRow();
+        int start = x + dx;
+        if (start < 0 || start >= width) {
+            return -1;
+        }
+
+        int firstWord = start >>> 6;
+        for (int w = firstWord; w >= 0 && w < wordsPerRow; w += dx) {
+            long target = targets.getWord(y, w);
+            long stop = grid.getBlockedWord(y, w) | target;
+            // Bits past the end of the row behave as a wall
+            if (w == wordsPerRow - 1 && (width & 63) != 0) {
+                stop |= -1L << (width & 63);
+            }
+            long forced = 0;
+            if (y > 0) {
+                forced |= forcedBits(grid, targets, y - 1, w, dx);
+            }
+            if (y < grid.getHeight() - 1) {
+                forced |= forcedBits(grid, targets, y + 1, w, dx);
+            }
+
+            long candidates = stop | forced;
+            if (w == firstWord) {
+                candidates &= dx > 0 ? -1L << (start & 63) : -1L >>> (63 - (start & 63));
+            }
+            if (candidates == 0) {
+                continue;
+            }
+
+            int bit = dx > 0 ? Long.numberOfTrailingZeros(candidates) : 63 - Long.numberOfLeadingZeros(candidates);
+            int cell = grid.cellOf((w << 6) + bit, y);
+            if ((target >>> bit & 1) != 0) {
+                return cell;
+            }
+            return (stop >>> bit & 1) != 0 ? -1 : cell;
+        }
+        return -1;
+    }
+
+    // Cells of a neighbouring row that are enterable while the cell behind them (against dx) is blocked
+    private static long forcedBits(GridGraph grid, TargetSet targets, int row, int w, int dx) {
+        long blocked = grid.getBlockedWord(row, w);
+        long enterable = ~blocked | targets.getWord(row, w);
+        long blockedBehind;
+        if (dx > 0) {
+            blockedBehind = blocked << 1;
+            if (w > 0) {
+                blockedBehind |= grid.getBlockedWord(row, w - 1) >>> 63;
+            }
+        } else {
+            blockedBehind = blocked >>> 1;
+            if (w + 1 < grid.getWordsPerRow()) {
+                blockedBehind |= grid.getBlockedWord(row, w + 1) << 63;
+            }
+        }
+        return enterable & blockedBehind;
+    }
+
+    // Links every cell of the straight runs between jump points, so the context holds a cell-by-cell path
+    private static void fillStraightRuns(GridGraph grid, SearchContext context, int target) {
+        int width = grid.getWidth();
+        int cell = target;
+        int parent = context.getPrevious(cell);
+        while (parent != -1) {
+            int step;
+            if (parent / width == cell / width) {
+                step = parent < cell ? -1 : 1;
+            } else {
+                step = parent < cell ? -width : width;
+            }
+            int d = context.getDistance(cell);
+            int c = cell;
+            while (c + step != parent) {
+                context.setDistance(c, d, c + step);
+                c += step;
+                d--;
+            }
+            context.setDistance(c, d, parent);
+            cell = parent;
+            parent = context.getPrevious(cell);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.*;
+
+public class LandmarkAStarEngine extends AStarEngine {
+    // Walking distance from each landmark to every cell, Integer.MAX_VALUE where unreachable
+    private final int[][] landmarkDist;
+
+    // Per target set and landmark, the sorted landmark distances of the targets' open neighbours
+    private final Map<TargetSet, int[][]> targetDistances = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // The last lookup, checked first since a search asks for the same target set on every relaxation
+    private volatile TargetDistances lastLookup;
+
+    private static class TargetDistances {
+        final TargetSet targets;
+        final int[][] sorted;
+
+        TargetDistances(TargetSet targets, int[][] sorted) {
+            this.targets = targets;
+            this.sorted = sorted;
+        }
+    }
+
+    private LandmarkAStarEngine(int[][] landmarkDist) {
+        this.landmarkDist = landmarkDist;
+    }
+
+    // Picks landmarks by farthest-point sampling, so they sit on the edges of the floor
+    public static LandmarkAStarEngine build(GridGraph grid, int count) {
+        int cells = grid.getCellCount();
+        int[] queue = new int[cells];
+        int[] minDist = new int[cells];
+        int[][] landmarkDist = new int[count][];
+
+        int seed = 0;
+        while (seed < cells && grid.isBlocked(seed)) {
+            seed++;
+        }
+        if (seed == cells) {
+            return new LandmarkAStarEngine(new int[0][]);
+        }
+
+        // The first landmark is the cell farthest from an arbitrary open cell
+        int[] field = new int[cells];
+        grid.distancesFrom(seed, field, queue);
+        Arrays.fill(minDist, Integer.MAX_VALUE);
+        int next = farthest(grid, field, field);
+
+        int built = 0;
+        while (built < count && next != -1) {
+            int[] dist = new int[cells];
+            grid.distancesFrom(next, dist, queue);
+            landmarkDist[built++] = dist;
+            for (int cell = 0; cell < cells; cell++) {
+                minDist[cell] = Math.min(minDist[cell], dist[cell]);
+            }
+            next = farthest(grid, minDist, field);
+        }
+        return new LandmarkAStarEngine(Arrays.copyOf(landmarkDist, built));
+    }
+
+    // The open cell reachable from the seed with the largest distance, or -1 if all are landmarks
+    private static int farthest(GridGraph grid, int[] dist, int[] reachable) {
+        int best = -1;
+        int bestDist = 0;
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            if (!grid.isBlocked(cell) && reachable[cell] != Integer.MAX_VALUE && dist[cell] > bestDist) {
+                best = cell;
+                bestDist = dist[cell];
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String getName() {
+        return "A* (landmarks)";
+    }
+
+    // Bins can be walked into but not through, so the triangle inequality only holds between
+    // open cells. A route into target t ends with a step from one of its open neighbours n, giving
+    // d(v, T) >= 1 + min over those n of |d(L, v) - d(L, n)|. The best landmark is taken, never
+    // below the Manhattan bound, and each landmark costs one binary search.
+    @Override
+    protected int estimate(GridGraph grid, int cell, TargetSet targets) {
+        if (targets.contains(cell)) {
+            return 0;
+        }
+        int h = super.estimate(grid, cell, targets);
+        TargetDistances lookup = lastLookup;
+        if (lookup == null || lookup.targets != targets) {
+            lookup = new TargetDistances(targets,
+                    targetDistances.computeIfAbsent(targets, t -> sortTargetDistances(grid, t)));
+            lastLookup = lookup;
+        }
+        int[][] sorted = lookup.sorted;
+        for (int l = 0; l < landmarkDist.length; l++) {
+            int d = landmarkDist[l][cell];
+            if (d != Integer.MAX_VALUE && sorted[l].length > 0) {
+                h = Math.max(h, 1 + TargetSet.distanceToNearest(sorted[l], d));
+            }
+        }
+        return h;
+    }
+
+    private int[][] sortTargetDistances(GridGraph grid, TargetSet targets) {
+        int[] neighbours = new int[4];
+        int[][] sorted = new int[landmarkDist.length][];
+        for (int l = 0; l < landmarkDist.length; l++) {
+            int[] values = new int[targets.size() * 4];
+            int n = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                int count = grid.neighbours(grid.cellOf(targets.getX(i), targets.getY(i)), neighbours);
+                for (int k = 0; k < count; k++) {
+                    // Cells the landmark cannot reach cannot be reached from its cells either
+                    int d = landmarkDist[l][neighbours[k]];
+                    if (!grid.isBlocked(neighbours[k]) && d != Integer.MAX_VALUE) {
+                        values[n++] = d;
+                    }
+                }
+            }
+            sorted[l] = Arrays.copyOf(values, n);
+            Arrays.sort(sorted[l]);
+        }
+        return sorted;
+    }
+}
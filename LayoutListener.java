@@ -0,0 +1,4 @@
+public interface LayoutListener {
+    // Called after the bin at (x, y) changes, occupant is the product now there or null if the cell is free
+    void cellChanged(int x, int y, Product occupant);
+}
@@ -0,0 +1,79 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LayoutSnapshot {
+    private final GridGraph grid;
+
+    // Copies of the products, so later edits to the inventory do not leak into running queries
+    private final Map<Integer, Product> productById;
+
+    // Name code -> cells of the bins holding it, bins outside the grid are left out
+    private final Map<Integer, int[]> cellsByName;
+
+    // Target sets are built on first use and shared by every query for the same name
+    private final Map<Integer, TargetSet> targetsByName;
+
+    private LayoutSnapshot(GridGraph grid, Map<Integer, Product> productById, Map<Integer, int[]> cellsByName) {
+        this.grid = grid;
+        this.productById = productById;
+        this.cellsByName = cellsByName;
+        this.targetsByName = new ConcurrentHashMap<>();
+    }
+
+    public static LayoutSnapshot of(List<Product> products, int width, int height) {
+        return of(products, width, height, null);
+    }
+
+    // Over a floor plan when there is one, which then decides the size
+    public static LayoutSnapshot of(List<Product> products, int width, int height, FloorPlan floor) {
+        GridGraph grid = GridGraph.fromProducts(products, width, height, floor);
+        Map<Integer, Product> productById = new HashMap<>();
+        Map<Integer, List<Integer>> cells = new HashMap<>();
+
+        for (Product p : products) {
+            productById.put(p.id, new Product(p.id, p.name, p.x, p.y, p.quantity));
+            List<Integer> nameCells = cells.computeIfAbsent(p.nameCode, k -> new ArrayList<>());
+            if (grid.contains(p.x, p.y)) {
+                nameCells.add(grid.cellOf(p.x, p.y));
+            }
+        }
+
+        Map<Integer, int[]> cellsByName = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : cells.entrySet()) {
+            List<Integer> nameCells = entry.getValue();
+            int[] packed = new int[nameCells.size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = nameCells.get(i);
+            }
+            cellsByName.put(entry.getKey(), packed);
+        }
+
+        return new LayoutSnapshot(grid, productById, cellsByName);
+    }
+
+    // The grid is shared by all readers and must not be modified
+    public GridGraph getGrid() {
+        return grid;
+    }
+
+    public Product getProduct(int id) {
+        return productById.get(id);
+    }
+
+    // Returns the sealed target set for a name, empty if every bin is off the grid,
+    // or null if no product has that name
+    public TargetSet getTargets(String name) {
+        int key = ProductNames.find(name);
+        int[] cells = cellsByName.get(key);
+        if (cells == null) {
+            return null;
+        }
+        return targetsByName.computeIfAbsent(key, k -> {
+            TargetSet targets = new TargetSet(grid);
+            for (int cell : cells) {
+                targets.add(grid.xOf(cell), grid.yOf(cell));
+            }
+            return targets.seal();
+        });
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+public class LongIntMap {
+    // Open addressing with linear probing over primitive arrays, no boxing on the hot path.
+    // Keys must not be negative, -1 marks an empty slot.
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected * 2, 16) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Value stored for key, or missing when there is none
+    public int get(long key, int missing) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return values[slot];
+            }
+            if (k == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    public void put(long key, int value) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                values[slot] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,523 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Products kept off the heap in memory-mapped files, so a catalog of millions of bins neither
+// pauses the collector nor has to be read back in on restart: opening maps the files and the
+// indexes are used as they lie on disk. A directory holds four files
+//   records.dat  a header, then one fixed-width record per bin: id, x, y, quantity, name offset
+//   names.dat    each distinct name once, as a 2-byte length and UTF-8 bytes
+//   ids.dat      open-addressing table of (id, row + 1), 0 marks an empty slot
+//   cells.dat    row + 1 for every cell y * width + x, 0 when the cell is empty
+// Rows are packed like ColumnarProductStore: a removal moves the last row into the hole. Writes
+// are not journaled. The header is marked dirty by the first change after a flush, and a store
+// opened dirty rebuilds its indexes from the records.
+public class MappedProductStore implements ProductStore {
+    private static final int MAGIC = 0x57485331; // "WHS1"
+    private static final int VERSION = 1;
+
+    // Header fields
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_WIDTH = 8;
+    private static final int HEADER_HEIGHT = 12;
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_DIRTY = 20;
+    private static final int HEADER_NAMES_END = 24;
+    private static final int HEADER_ID_CAPACITY = 28;
+    private static final int HEADER_BYTES = 64;
+
+    // Record fields
+    private static final int ID = 0;
+    private static final int X = 4;
+    private static final int Y = 8;
+    private static final int QUANTITY = 12;
+    private static final int NAME = 16;
+    private static final int RECORD_BYTES = 20;
+
+    private static final int ID_SLOT_BYTES = 8;
+
+    private final int width;
+    private final int height;
+    private final FileChannel recordFile;
+    private final FileChannel nameFile;
+    private final FileChannel idFile;
+    private final FileChannel cellFile;
+    private MappedByteBuffer records;
+    private MappedByteBuffer names;
+    private MappedByteBuffer idSlots;
+    private final MappedByteBuffer cells;
+
+    private int size;
+    private int namesEnd;
+    private int idMask;
+    private boolean dirty;
+
+    // Names already in names.dat, read on first use: the spelling's code, the file offset of each
+    // code, and the ProductNames code lookups match on, as in ColumnarProductStore
+    private NameDictionary spellings;
+    private int[] offsetOfSpelling;
+    private int[] keyOfSpelling;
+    private IntIntMap spellingAtOffset;
+
+    private final Product view = new Product(0, null, 0, 0, 0); // forEach
+    private final Product peeked = new Product(0, null, 0, 0, 0); // peekById and peekAt
+
+    public MappedProductStore(Path directory, int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        Files.createDirectories(directory);
+        recordFile = openFile(directory.resolve("records.dat"));
+        nameFile = openFile(directory.resolve("names.dat"));
+        idFile = openFile(directory.resolve("ids.dat"));
+        cellFile = openFile(directory.resolve("cells.dat"));
+        cells = map(cellFile, (long) width * height * 4);
+
+        if (recordFile.size() == 0) {
+            records = map(recordFile, HEADER_BYTES + 16L * RECORD_BYTES);
+            records.putInt(HEADER_MAGIC, MAGIC);
+            records.putInt(HEADER_VERSION, VERSION);
+            records.putInt(HEADER_WIDTH, width);
+            records.putInt(HEADER_HEIGHT, height);
+            names = map(nameFile, 4096);
+            mapIdSlots(16);
+            return;
+        }
+
+        records = map(recordFile, recordFile.size());
+        if (records.getInt(HEADER_MAGIC) != MAGIC || records.getInt(HEADER_VERSION) != VERSION) {
+            throw new IOException(directory + " does not hold a product store");
+        }
+        if (records.getInt(HEADER_WIDTH) != width || records.getInt(HEADER_HEIGHT) != height) {
+            throw new IOException(directory + " was written for a " + records.getInt(HEADER_WIDTH) + "x"
+                    + records.getInt(HEADER_HEIGHT) + " floor, not " + width + "x" + height);
+        }
+        size = records.getInt(HEADER_SIZE);
+        namesEnd = records.getInt(HEADER_NAMES_END);
+        names = map(nameFile, Math.max(nameFile.size(), 4096));
+        mapIdSlots(records.getInt(HEADER_ID_CAPACITY));
+        if (records.getInt(HEADER_DIRTY) != 0) {
+            dirty = true;
+            rebuildIndexes();
+        }
+    }
+
+    // Opens the store in the directory named by -Dwarehouse.storeDir, flushed when the JVM exits so
+    // the next start finds it clean
+    static MappedProductStore openConfigured(String directory, int width, int height) {
+        try {
+            MappedProductStore store = new MappedProductStore(Paths.get(directory), width, height);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::flush));
+            return store;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open product store " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Writes every change through to the disk and marks the store clean
+    public synchronized void flush() {
+        records.putInt(HEADER_DIRTY, 0);
+        dirty = false;
+        records.force();
+        names.force();
+        idSlots.force();
+        cells.force();
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        markDirty();
+        int existing = rowOf(product.id);
+        if (existing != -1) {
+            removeRow(existing); // same as a map put, the newer record wins
+        }
+        int nameOffset = encode(product.name);
+        if (HEADER_BYTES + (long) (size + 1) * RECORD_BYTES > records.capacity()) {
+            records = map(recordFile, HEADER_BYTES + (long) Math.max(size, 16) * 2 * RECORD_BYTES);
+        }
+        int row = size;
+        int at = HEADER_BYTES + row * RECORD_BYTES;
+        records.putInt(at + ID, product.id);
+        records.putInt(at + X, product.x);
+        records.putInt(at + Y, product.y);
+        records.putInt(at + QUANTITY, product.quantity);
+        records.putInt(at + NAME, nameOffset);
+        setSize(size + 1);
+        putRow(product.id, row);
+        cells.putInt(cellOf(row) * 4, row + 1);
+    }
+
+    @Override
+    public synchronized Product remove(int id) {
+        int row = rowOf(id);
+        if (row == -1) {
+            return null;
+        }
+        markDirty();
+        Product removed = materialize(row);
+        removeRow(row);
+        return removed;
+    }
+
+    @Override
+    public synchronized void move(int id, int x, int y) {
+        markDirty();
+        int row = rowOf(id);
+        cells.putInt(cellOf(row) * 4, 0);
+        records.putInt(HEADER_BYTES + row * RECORD_BYTES + X, x);
+        records.putInt(HEADER_BYTES + row * RECORD_BYTES + Y, y);
+        cells.putInt((y * width + x) * 4, row + 1);
+    }
+
+    @Override
+    public synchronized void setQuantity(int id, int quantity) {
+        markDirty();
+        records.putInt(HEADER_BYTES + rowOf(id) * RECORD_BYTES + QUANTITY, quantity);
+    }
+
+    @Override
+    public synchronized Product getById(int id) {
+        int row = rowOf(id);
+        return row == -1 ? null : materialize(row);
+    }
+
+    @Override
+    public synchronized Product getAt(int x, int y) {
+        int row = cells.getInt((y * width + x) * 4) - 1;
+        return row == -1 ? null : materialize(row);
+    }
+
+    @Override
+    public synchronized Product peekById(int id) {
+        int row = rowOf(id);
+        return row == -1 ? null : fill(peeked, row);
+    }
+
+    @Override
+    public synchronized Product peekAt(int x, int y) {
+        int row = cells.getInt((y * width + x) * 4) - 1;
+        return row == -1 ? null : fill(peeked, row);
+    }
+
+    // Walks the cells of a small rectangle, or the records when there are fewer of them
+    @Override
+    public synchronized List<Product> getInArea(int startX, int startY, int endX, int endY) {
+        startX = Math.max(startX, 0);
+        startY = Math.max(startY, 0);
+        endX = Math.min(endX, width - 1);
+        endY = Math.min(endY, height - 1);
+        List<Product> found = new ArrayList<>();
+        if (startX > endX || startY > endY) {
+            return found;
+        }
+        if ((long) (endX - startX + 1) * (endY - startY + 1) > size) {
+            for (int row = 0; row < size; row++) {
+                int x = field(row, X);
+                int y = field(row, Y);
+                if (x >= startX && x <= endX && y >= startY && y <= endY) {
+                    found.add(materialize(row));
+                }
+            }
+            return found;
+        }
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                int row = cells.getInt((y * width + x) * 4) - 1;
+                if (row != -1) {
+                    found.add(materialize(row));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized List<Product> getByName(String name) {
+        List<Product> found = new ArrayList<>();
+        loadNames();
+        int key = ProductNames.find(name);
+        if (key == -1) {
+            return found;
+        }
+        // Usually one spelling, sometimes a few differing in case
+        int[] wanted = new int[4];
+        int count = 0;
+        for (int code = 0; code < spellings.size(); code++) {
+            if (keyOfSpelling[code] == key) {
+                if (count == wanted.length) {
+                    wanted = Arrays.copyOf(wanted, count * 2);
+                }
+                wanted[count++] = offsetOfSpelling[code];
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            int nameOffset = field(row, NAME);
+            for (int i = 0; i < count; i++) {
+                if (wanted[i] == nameOffset) {
+                    found.add(materialize(row));
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized List<Product> getAll() {
+        List<Product> all = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            all.add(materialize(row));
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<Product> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(fill(view, row));
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    // Names stay in names.dat, a reload mostly brings the same ones back
+    @Override
+    public synchronized void clear() {
+        markDirty();
+        for (int row = 0; row < size; row++) {
+            cells.putInt(cellOf(row) * 4, 0);
+        }
+        clearIdSlots();
+        setSize(0);
+    }
+
+    private void removeRow(int row) {
+        cells.putInt(cellOf(row) * 4, 0);
+        removeId(field(row, ID));
+        int last = size - 1;
+        if (row != last) {
+            int to = HEADER_BYTES + row * RECORD_BYTES;
+            int from = HEADER_BYTES + last * RECORD_BYTES;
+            for (int f = 0; f < RECORD_BYTES; f += 4) {
+                records.putInt(to + f, records.getInt(from + f));
+            }
+            putRow(field(row, ID), row);
+            cells.putInt(cellOf(row) * 4, row + 1);
+        }
+        setSize(last);
+    }
+
+    private int field(int row, int field) {
+        return records.getInt(HEADER_BYTES + row * RECORD_BYTES + field);
+    }
+
+    private int cellOf(int row) {
+        return field(row, Y) * width + field(row, X);
+    }
+
+    private Product fill(Product target, int row) {
+        int at = HEADER_BYTES + row * RECORD_BYTES;
+        target.id = records.getInt(at + ID);
+        target.x = records.getInt(at + X);
+        target.y = records.getInt(at + Y);
+        target.quantity = records.getInt(at + QUANTITY);
+        int spelling = spellingAt(records.getInt(at + NAME));
+        target.name = spellings.decode(spelling);
+        target.nameCode = keyOfSpelling[spelling];
+        return target;
+    }
+
+    private Product materialize(int row) {
+        return new Product(field(row, ID), decode(field(row, NAME)), field(row, X), field(row, Y),
+                field(row, QUANTITY));
+    }
+
+    private void setSize(int newSize) {
+        size = newSize;
+        records.putInt(HEADER_SIZE, newSize);
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            records.putInt(HEADER_DIRTY, 1);
+        }
+    }
+
+    // The indexes may be behind the records after an unclean exit, so both are rebuilt from them
+    private void rebuildIndexes() {
+        for (int i = 0; i < cells.capacity(); i += 8) {
+            cells.putLong(i, 0);
+        }
+        clearIdSlots();
+        for (int row = 0; row < size; row++) {
+            putRow(field(row, ID), row);
+            cells.putInt(cellOf(row) * 4, row + 1);
+        }
+    }
+
+    // --- id table, linear probing with backward-shift removal as in IntIntMap ---
+
+    private int rowOf(int id) {
+        for (int slot = slot(id); ; slot = (slot + 1) & idMask) {
+            int at = slot * ID_SLOT_BYTES;
+            int row = idSlots.getInt(at + 4);
+            if (row == 0) {
+                return -1;
+            }
+            if (idSlots.getInt(at) == id) {
+                return row - 1;
+            }
+        }
+    }
+
+    private void putRow(int id, int row) {
+        for (int slot = slot(id); ; slot = (slot + 1) & idMask) {
+            int at = slot * ID_SLOT_BYTES;
+            if (idSlots.getInt(at + 4) == 0 || idSlots.getInt(at) == id) {
+                idSlots.putInt(at, id);
+                idSlots.putInt(at + 4, row + 1);
+                break;
+            }
+        }
+        if (size * 2 > idMask + 1) {
+            mapIdSlots((idMask + 1) * 2);
+            clearIdSlots();
+            for (int r = 0; r < size; r++) {
+                putRow(field(r, ID), r);
+            }
+        }
+    }
+
+    private void removeId(int id) {
+        int hole = slot(id);
+        while (idSlots.getInt(hole * ID_SLOT_BYTES + 4) == 0 || idSlots.getInt(hole * ID_SLOT_BYTES) != id) {
+            if (idSlots.getInt(hole * ID_SLOT_BYTES + 4) == 0) {
+                return;
+            }
+            hole = (hole + 1) & idMask;
+        }
+        for (int next = (hole + 1) & idMask; idSlots.getInt(next * ID_SLOT_BYTES + 4) != 0; next = (next + 1) & idMask) {
+            int home = slot(idSlots.getInt(next * ID_SLOT_BYTES));
+            if (((next - home) & idMask) >= ((next - hole) & idMask)) {
+                idSlots.putLong(hole * ID_SLOT_BYTES, idSlots.getLong(next * ID_SLOT_BYTES));
+                hole = next;
+            }
+        }
+        idSlots.putLong(hole * ID_SLOT_BYTES, 0);
+    }
+
+    private int slot(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & idMask;
+    }
+
+    private void mapIdSlots(int capacity) {
+        if ((long) capacity * ID_SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Product store id table is full");
+        }
+        idSlots = map(idFile, (long) capacity * ID_SLOT_BYTES);
+        idMask = capacity - 1;
+        records.putInt(HEADER_ID_CAPACITY, capacity);
+    }
+
+    private void clearIdSlots() {
+        for (int i = 0; i < idSlots.capacity(); i += ID_SLOT_BYTES) {
+            idSlots.putLong(i, 0);
+        }
+    }
+
+    // --- names ---
+
+    private void loadNames() {
+        if (spellings != null) {
+            return;
+        }
+        spellings = new NameDictionary();
+        offsetOfSpelling = new int[16];
+        keyOfSpelling = new int[16];
+        spellingAtOffset = new IntIntMap(16);
+        for (int at = 0; at < namesEnd; ) {
+            int length = names.getShort(at) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            names.position(at + 2);
+            names.get(bytes);
+            remember(new String(bytes, StandardCharsets.UTF_8), at);
+            at += 2 + length;
+        }
+    }
+
+    private void remember(String name, int offset) {
+        int code = spellings.encode(name);
+        if (code == offsetOfSpelling.length) {
+            offsetOfSpelling = Arrays.copyOf(offsetOfSpelling, code * 2);
+            keyOfSpelling = Arrays.copyOf(keyOfSpelling, code * 2);
+        }
+        offsetOfSpelling[code] = offset;
+        keyOfSpelling[code] = ProductNames.codeOf(name);
+        spellingAtOffset.put(offset, code);
+    }
+
+    // Offset of the name in names.dat, appended the first time it is seen
+    private int encode(String name) {
+        loadNames();
+        int code = spellings.find(name);
+        if (code != -1) {
+            return offsetOfSpelling[code];
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Product name is longer than 65535 bytes");
+        }
+        int offset = namesEnd;
+        if ((long) offset + 2 + bytes.length > names.capacity()) {
+            names = map(nameFile, Math.max(names.capacity() * 2L, offset + 2L + bytes.length));
+        }
+        names.putShort(offset, (short) bytes.length);
+        names.position(offset + 2);
+        names.put(bytes);
+        namesEnd = offset + 2 + bytes.length;
+        records.putInt(HEADER_NAMES_END, namesEnd);
+        remember(name, offset);
+        return offset;
+    }
+
+    private String decode(int offset) {
+        int spelling = spellingAt(offset); // loads the names first
+        return spellings.decode(spelling);
+    }
+
+    private int spellingAt(int offset) {
+        loadNames();
+        return spellingAtOffset.get(offset, -1);
+    }
+
+    // --- files ---
+
+    private static FileChannel openFile(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Maps the whole file read-write, growing it to bytes if it is shorter. A buffer mapped before
+    // stays valid, the larger one simply replaces it.
+    private static MappedByteBuffer map(FileChannel channel, long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Product store file would exceed 2 GB");
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map product store file: " + e.getMessage(), e);
+        }
+    }
+}
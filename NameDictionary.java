@@ -0,0 +1,43 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dense int codes for strings, each distinct string gets the next code the first time it is seen.
+// Safe to share between threads: lookups and decoding take no lock, only a new string does.
+public class NameDictionary {
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    public int encode(String name) {
+        Integer code = codes.get(name);
+        return code != null ? code : add(name);
+    }
+
+    private synchronized int add(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code; // another thread added it first
+        }
+        // The name is in the array before its code is published, so a decoder never sees a gap
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        codes.put(name, size);
+        return size++;
+    }
+
+    // Code of a string seen before, -1 otherwise
+    public int find(String name) {
+        Integer code = codes.get(name);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return names[code];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.*;
+
+// Substring search over product names through the trigram index against a scan of every bin's
+// name, for terms from very selective to very broad. Each query is the first page of 50 and the
+// number of matches, as the product table asks for them.
+//   java NameSearchBenchmark [bins]
+// 1,000,000 bins over 200,000 names on a 2000 x 800 floor by default. Exits with status 1 when
+// the index and the scan count different matches.
+public class NameSearchBenchmark {
+    private static final String[] KINDS = { "Bolt", "Nut", "Washer", "Gear", "Bearing", "Spring", "Hinge", "Bracket",
+            "Clamp", "Valve", "Pump", "Filter", "Sensor", "Cable", "Fuse" };
+    private static final String[] MATERIALS = { "Steel", "Brass", "Nylon", "Copper", "Zinc", "Titanium",
+            "Aluminium", "Rubber" };
+    private static final String[] SIZES = { "M3", "M4", "M5", "M6", "M8", "M10", "M12", "1/4in", "3/8in", "1/2in" };
+    private static final String[] TERMS = { "#123456", "10042", "bearing m8", "valve", "titanium spring", "steel",
+            "#1", "zzz" };
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) {
+        BenchmarkSupport.setDefault("warehouse.width", "2000");
+        BenchmarkSupport.setDefault("warehouse.height", "800");
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ProductGrid grid = new ProductGrid();
+        int width = grid.getGridWidth();
+        int cells = width * grid.getGridHeight();
+        Random random = new Random(25);
+        String[] names = new String[Math.max(1, n / 5)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = MATERIALS[random.nextInt(MATERIALS.length)] + " " + KINDS[random.nextInt(KINDS.length)] + " "
+                    + SIZES[random.nextInt(SIZES.length)] + " #" + (10000 + i);
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < Math.min(n, cells); i++) {
+            Product p = new Product(i, names[random.nextInt(names.length)], i % width, i / width,
+                    1 + random.nextInt(80));
+            products.add(p);
+            grid.addProduct(p);
+        }
+
+        long startTime = System.nanoTime();
+        grid.countSearchResults("warm");
+        System.out.printf("%d bins, index over %d names built in %.0f ms%n", products.size(), ProductNames.count(),
+                (System.nanoTime() - startTime) / 1e6);
+
+        int mismatches = 0;
+        for (String term : TERMS) {
+            String needle = term.toLowerCase();
+            startTime = System.nanoTime();
+            int scanned = 0;
+            for (Product p : products) {
+                if (p.name.toLowerCase().contains(needle)) {
+                    scanned++;
+                }
+            }
+            long scanNanos = System.nanoTime() - startTime;
+
+            // Another term in between, so the grid's cached last search never answers
+            long indexNanos = 0;
+            int counted = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                grid.searchProducts(term.equals(TERMS[0]) ? TERMS[1] : TERMS[0], 0, 1);
+                startTime = System.nanoTime();
+                grid.searchProducts(term, 0, 50);
+                counted = grid.countSearchResults(term);
+                indexNanos += System.nanoTime() - startTime;
+            }
+            System.out.printf("%-18s %7d matches, scan %7.1f ms, index %9.1f us%n", "'" + term + "'", counted,
+                    scanNanos / 1e6, indexNanos / 1e3 / QUERIES);
+            mismatches += counted == scanned ? 0 : 1;
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
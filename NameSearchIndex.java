@@ -0,0 +1,163 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Substring search over product names, a trigram inverted index standing in for
+// LOWER(name) LIKE '%term%'. Every three-character run of a lower-case name points at the
+// name's ProductNames code in a packed int posting list. A term's candidates are the codes on
+// all of its trigrams' lists; intersecting them leaves only a few names to check with contains.
+// Indexes names, not bins, and only ever grows: codes are appended in order as ProductNames hands
+// them out, so every list stays sorted without sorting. Whether a name still has bins is asked
+// of the caller at query time.
+public class NameSearchIndex {
+    // Ranks of a match, best first: the whole name, its start, the start of a word, anywhere
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD = 2;
+    private static final int INSIDE = 3;
+
+    private final LongIntMap listByGram = new LongIntMap(1024); // packed trigram -> list
+    private int[][] postings = new int[64][];
+    private int[] postingSizes = new int[64];
+    private int lists;
+    private int indexed; // codes below this are in the lists
+
+    // Catches up with the names ProductNames has seen since the last call
+    public void update() {
+        for (int count = ProductNames.count(); indexed < count; indexed++) {
+            String key = ProductNames.keyOf(indexed);
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                append(list(gram(key, i)), indexed);
+            }
+        }
+    }
+
+    // Codes of the names containing term, any case, for which live holds, best match first: by
+    // rank, then shorter names, then older names
+    public int[] search(String term, IntPredicate live) {
+        update();
+        String needle = term.toLowerCase();
+        int[] candidates = candidates(needle);
+        long[] ranked = new long[candidates == null ? indexed : candidates.length];
+        int found = 0;
+        for (int i = 0; i < ranked.length; i++) {
+            int code = candidates == null ? i : candidates[i];
+            if (!live.test(code)) {
+                continue;
+            }
+            String key = ProductNames.keyOf(code);
+            int at = key.indexOf(needle);
+            if (at == -1) {
+                continue; // had every trigram, but not next to each other
+            }
+            long rank = rank(key, needle, at);
+            ranked[found++] = rank << 60 | (long) Math.min(key.length(), 0xFFFFFFF) << 32 | code;
+        }
+        Arrays.sort(ranked, 0, found);
+        int[] codes = new int[found];
+        for (int i = 0; i < found; i++) {
+            codes[i] = (int) ranked[i];
+        }
+        return codes;
+    }
+
+    // Sorted codes holding every trigram of the term, null when it is too short to have one and
+    // every name has to be checked
+    private int[] candidates(String needle) {
+        if (needle.length() < 3) {
+            return null;
+        }
+        // Shortest lists first, so the running intersection is small from the start
+        int grams = needle.length() - 2;
+        long[] bySize = new long[grams];
+        for (int i = 0; i < grams; i++) {
+            int list = listByGram.get(gram(needle, i), -1);
+            if (list == -1) {
+                return new int[0];
+            }
+            bySize[i] = (long) postingSizes[list] << 32 | list;
+        }
+        Arrays.sort(bySize);
+        int first = (int) bySize[0];
+        int[] result = Arrays.copyOf(postings[first], postingSizes[first]);
+        int size = result.length;
+        for (int i = 1; i < grams && size > 0; i++) {
+            int list = (int) bySize[i];
+            if (list == (int) bySize[i - 1]) {
+                continue; // the term repeats a trigram
+            }
+            size = intersect(result, size, postings[list], postingSizes[list]);
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Keeps the codes of result[0, size) that are also in other, returns how many are left. Each
+    // code is looked for from where the previous one was found, by galloping, so a short result
+    // against a long list costs O(size * log(distance)).
+    private static int intersect(int[] result, int size, int[] other, int otherSize) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < size && from < otherSize; i++) {
+            int code = result[i];
+            int step = 1;
+            int to = from;
+            while (to < otherSize && other[to] < code) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(other, from, Math.min(to + 1, otherSize), code);
+            if (at >= 0) {
+                result[kept++] = code;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return kept;
+    }
+
+    private static int rank(String key, String needle, int at) {
+        if (at == 0) {
+            return key.length() == needle.length() ? EXACT : PREFIX;
+        }
+        // A later occurrence may start a word even when the first one does not
+        for (; at != -1; at = key.indexOf(needle, at + 1)) {
+            if (!Character.isLetterOrDigit(key.charAt(at - 1))) {
+                return WORD;
+            }
+        }
+        return INSIDE;
+    }
+
+    // Three chars packed into the low 48 bits, never negative as LongIntMap needs
+    private static long gram(String s, int i) {
+        return (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+    }
+
+    private int list(long gram) {
+        int list = listByGram.get(gram, -1);
+        if (list == -1) {
+            if (lists == postings.length) {
+                postings = Arrays.copyOf(postings, lists * 2);
+                postingSizes = Arrays.copyOf(postingSizes, lists * 2);
+            }
+            list = lists++;
+            postings[list] = new int[4];
+            listByGram.put(gram, list);
+        }
+        return list;
+    }
+
+    private void append(int list, int code) {
+        int size = postingSizes[list];
+        int[] codes = postings[list];
+        if (size > 0 && codes[size - 1] == code) {
+            return; // the name repeats this trigram
+        }
+        if (size == codes.length) {
+            codes = postings[list] = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size] = code;
+        postingSizes[list] = size + 1;
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.Arrays;
+
+// Bins and units per product, indexed by ProductNames code, so "how much of X is there" is two
+// array reads instead of a walk over X's bins
+public class NameTotals {
+    private int[] bins = new int[16];
+    private long[] units = new long[16];
+
+    // Totals of every product of a store in one pass
+    public static NameTotals of(ProductStore store) {
+        NameTotals totals = new NameTotals();
+        store.forEach(product -> totals.add(product.nameCode, 1, product.quantity));
+        return totals;
+    }
+
+    // Adds count bins and quantity units to a name, negative to take them away
+    public void add(int nameCode, int count, long quantity) {
+        if (nameCode >= bins.length) {
+            int capacity = Math.max(nameCode + 1, bins.length * 2);
+            bins = Arrays.copyOf(bins, capacity);
+            units = Arrays.copyOf(units, capacity);
+        }
+        bins[nameCode] += count;
+        units[nameCode] += quantity;
+    }
+
+    public int getBins(int nameCode) {
+        return nameCode >= 0 && nameCode < bins.length ? bins[nameCode] : 0;
+    }
+
+    public long getUnits(int nameCode) {
+        return nameCode >= 0 && nameCode < units.length ? units[nameCode] : 0;
+    }
+}
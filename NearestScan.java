@@ -0,0 +1,34 @@
+// Nearest candidate by |dx| + |dy| over plain coordinate arrays, e.g. the bins holding one product.
+// Two int arrays stream through the cache, where a List<Product> scan chases a pointer and
+// compares a name for every candidate.
+public class NearestScan {
+    private NearestScan() {
+    }
+
+    // Index of the first of count candidates closest to (x, y), or -1 if there are none
+    public static int nearest(int[] xs, int[] ys, int count, int x, int y) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int d = Math.abs(xs[i] - x) + Math.abs(ys[i] - y);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // Writes the indices of the candidates at most limit away into out, which needs room for count
+    // entries, and returns how many there are. Cuts a long candidate list down before anything more
+    // expensive looks at it.
+    public static int within(int[] xs, int[] ys, int count, int x, int y, int limit, int[] out) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(xs[i] - x) + Math.abs(ys[i] - y) <= limit) {
+                out[found++] = i;
+            }
+        }
+        return found;
+    }
+}
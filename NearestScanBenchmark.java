@@ -0,0 +1,64 @@
+import java.util.*;
+
+// Nearest bin by |dx| + |dy| out of n bins of one name: a walk over Product objects in heap order
+// against NearestScan over coordinate arrays.
+//   java NearestScanBenchmark
+// Runs 10k, 100k and 1M bins on a 2000 x 800 floor.
+public class NearestScanBenchmark {
+    private static final int WIDTH = 2000;
+    private static final int HEIGHT = 800;
+    private static final int ROUNDS = 4;
+
+    public static void main(String[] args) {
+        for (int n : new int[] { 10_000, 100_000, 1_000_000 }) {
+            Random random = new Random(n);
+            List<Product> products = new ArrayList<>();
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(WIDTH);
+                ys[i] = random.nextInt(HEIGHT);
+                products.add(new Product(i, "Laptop", xs[i], ys[i], 1));
+            }
+            Collections.shuffle(products, new Random(1)); // heap order, not allocation order
+
+            int repeats = Math.max(20, 20_000_000 / n);
+            long objectNanos = 0;
+            long scanNanos = 0;
+            long sink = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                Random query = new Random(3);
+                long t0 = System.nanoTime();
+                for (int k = 0; k < repeats; k++) {
+                    sink += objectScan(products, "laptop", query.nextInt(WIDTH), query.nextInt(HEIGHT));
+                }
+                long t1 = System.nanoTime();
+                for (int k = 0; k < repeats; k++) {
+                    sink += NearestScan.nearest(xs, ys, n, query.nextInt(WIDTH), query.nextInt(HEIGHT));
+                }
+                long t2 = System.nanoTime();
+                objectNanos = (t1 - t0) / repeats; // the last, warmest round counts
+                scanNanos = (t2 - t1) / repeats;
+            }
+            System.out.printf("%,d bins: Product list %.1f us, NearestScan %.1f us (%d)%n", n, objectNanos / 1e3,
+                    scanNanos / 1e3, sink % 7);
+        }
+    }
+
+    // Returns the index of the nearest product with the name
+    private static int objectScan(List<Product> products, String name, int x, int y) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < products.size(); i++) {
+            Product p = products.get(i);
+            if (p.name.equalsIgnoreCase(name)) {
+                int d = Math.abs(p.x - x) + Math.abs(p.y - y);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+}
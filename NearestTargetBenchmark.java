@@ -0,0 +1,36 @@
+import java.util.*;
+
+// How much of the floor a nearest-bin search settles before it stops at the first target it
+// takes off the heap, against the whole floor it used to settle. Racked floor, names with many
+// bins, so the nearest one is usually close and the rest are far away.
+//   java NearestTargetBenchmark [size] [queries]
+// A 1000 x 1000 floor and 100 queries per engine by default.
+public class NearestTargetBenchmark {
+    private static final int WARMUP = 20;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Random random = new Random(4);
+        List<Product> products = BenchmarkSupport.rackedFloor(size, size, 0.9, 200, random);
+        LayoutSnapshot layout = LayoutSnapshot.of(products, size, size);
+        long cells = (long) size * size;
+        System.out.printf("%d x %d floor, %d bins over 200 names%n", size, size, products.size());
+
+        for (PathEngine engine : new PathEngine[] { PathFinder.DIJKSTRA, PathFinder.A_STAR }) {
+            Random query = new Random(40);
+            long nanos = 0;
+            long expanded = 0;
+            for (int q = 0; q < WARMUP + queries; q++) {
+                PathFinder.PathResult result = PathFinder.findShortestPath(layout,
+                        query.nextInt(products.size()), "P" + query.nextInt(200), engine);
+                if (q >= WARMUP) {
+                    nanos += result.stats.searchNanos;
+                    expanded += result.stats.expanded;
+                }
+            }
+            System.out.printf("%s: %.3f ms and %d cells expanded per query, %.2f%% of the floor%n",
+                    engine.getName(), nanos / 1e6 / queries, expanded / queries, 100.0 * expanded / queries / cells);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import java.awt.Point;
+import java.util.*;
+
+// A walk across the floor stored as its turn points only, packed as (x << 16) | y.
+// A straight run of any length costs one int, and Points are only created when the walk is read.
+public class PackedPath extends AbstractList<Point> implements RandomAccess {
+    private int[] turns = new int[8]; // first cell, every turn and the last cell
+    private int[] steps = new int[8]; // index of each of those cells in the walk
+    private int turnCount;
+
+    public PackedPath() {
+    }
+
+    // Appends the next cell of the walk, usually a neighbour of the last one
+    public void append(int x, int y) {
+        appendRun(x, y, 1);
+    }
+
+    // Appends the cells of another walk, skipping its first from of them
+    public void appendAll(List<Point> walk, int from) {
+        if (!(walk instanceof PackedPath)) {
+            for (int i = from; i < walk.size(); i++) {
+                Point p = walk.get(i);
+                appendRun(p.x, p.y, 1);
+            }
+            return;
+        }
+        PackedPath other = (PackedPath) walk;
+        if (from >= other.size()) {
+            return;
+        }
+        // Copy run by run, the cells in between never have to be expanded
+        Point first = other.get(from);
+        appendRun(first.x, first.y, 1);
+        int at = from;
+        for (int k = 0; k < other.turnCount; k++) {
+            if (other.steps[k] > at) {
+                appendRun(other.getTurnX(k), other.getTurnY(k), other.steps[k] - at);
+                at = other.steps[k];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return turnCount == 0 ? 0 : steps[turnCount - 1] + 1;
+    }
+
+    @Override
+    public Point get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int k = Arrays.binarySearch(steps, 0, turnCount, index);
+        if (k >= 0) {
+            return new Point(turns[k] >>> 16, turns[k] & 0xFFFF);
+        }
+        k = -k - 2; // the turn point the index follows
+        return pointOnRun(k, index);
+    }
+
+    @Override
+    public Iterator<Point> iterator() {
+        return new Iterator<Point>() {
+            private int index;
+            private int run;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Point next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i = index++;
+                while (run + 1 < turnCount && steps[run + 1] <= i) {
+                    run++;
+                }
+                return steps[run] == i ? new Point(turns[run] >>> 16, turns[run] & 0xFFFF) : pointOnRun(run, i);
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        turnCount = 0;
+    }
+
+    // Turn points, enough to draw the walk as straight segments
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    public int getTurnX(int turn) {
+        return turns[turn] >>> 16;
+    }
+
+    public int getTurnY(int turn) {
+        return turns[turn] & 0xFFFF;
+    }
+
+    // Position of a turn point in the walk
+    public int getTurnIndex(int turn) {
+        return steps[turn];
+    }
+
+    // Cell index on the straight run that starts at turn point k
+    private Point pointOnRun(int k, int index) {
+        int x0 = turns[k] >>> 16;
+        int y0 = turns[k] & 0xFFFF;
+        int offset = index - steps[k];
+        int x = x0 + Integer.signum((turns[k + 1] >>> 16) - x0) * offset;
+        int y = y0 + Integer.signum((turns[k + 1] & 0xFFFF) - y0) * offset;
+        return new Point(x, y);
+    }
+
+    // Adds a point stepCount cells after the current end, extending the last run when it carries on
+    // in the same direction at one cell per step
+    private void appendRun(int x, int y, int stepCount) {
+        int code = (x << 16) | y;
+        int index = turnCount == 0 ? 0 : steps[turnCount - 1] + stepCount;
+        if (turnCount >= 2 && continuesRun(x, y, stepCount)) {
+            turns[turnCount - 1] = code;
+            steps[turnCount - 1] = index;
+            return;
+        }
+        if (turnCount == turns.length) {
+            turns = Arrays.copyOf(turns, turnCount * 2);
+            steps = Arrays.copyOf(steps, turnCount * 2);
+        }
+        turns[turnCount] = code;
+        steps[turnCount] = index;
+        turnCount++;
+    }
+
+    private boolean continuesRun(int x, int y, int stepCount) {
+        int ax = turns[turnCount - 2] >>> 16;
+        int ay = turns[turnCount - 2] & 0xFFFF;
+        int bx = turns[turnCount - 1] >>> 16;
+        int by = turns[turnCount - 1] & 0xFFFF;
+        int runSteps = steps[turnCount - 1] - steps[turnCount - 2];
+        int dx = Integer.signum(bx - ax);
+        int dy = Integer.signum(by - ay);
+        // The run so far must be walked one cell per step for its cells to be interpolated
+        if (Math.max(Math.abs(bx - ax), Math.abs(by - ay)) != runSteps || (dx == 0 && dy == 0)) {
+            return false;
+        }
+        return x - bx == dx * stepCount && y - by == dy * stepCount;
+    }
+}
@@ -0,0 +1,70 @@
+import java.awt.Point;
+import java.util.*;
+
+// Bytes and time to turn a finished search into a route, as a list of Points against PackedPath,
+// which keeps only the turns.
+//   java PackedPathBenchmark
+// 200 A* routes on a 2000 x 800 floor with 60,000 bins scattered over it.
+public class PackedPathBenchmark {
+    private static final int WIDTH = 2000;
+    private static final int HEIGHT = 800;
+    private static final int ROUTES = 200;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        Random random = new Random(13);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 60000; i++) {
+            products.add(new Product(i, "P" + (i % 50), random.nextInt(WIDTH), random.nextInt(HEIGHT), 1));
+        }
+        GridGraph grid = GridGraph.fromProducts(products, WIDTH, HEIGHT);
+        SearchContext context = SearchContext.forCurrentThread();
+        int[] sources = new int[ROUTES];
+        TargetSet[] targets = new TargetSet[ROUTES];
+        for (int i = 0; i < ROUTES; i++) {
+            sources[i] = grid.cellOf(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            targets[i] = new TargetSet(grid);
+            targets[i].add(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+            targets[i].seal();
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long listBytes = 0;
+            long packedBytes = 0;
+            long listNanos = 0;
+            long packedNanos = 0;
+            long cells = 0;
+            long turns = 0;
+            for (int i = 0; i < ROUTES; i++) {
+                context.reset(grid.getCellCount());
+                int reached = PathFinder.A_STAR.search(grid, sources[i], targets[i], context);
+                if (reached == -1) {
+                    continue;
+                }
+                long b0 = BenchmarkSupport.allocatedBytes();
+                long t0 = System.nanoTime();
+                List<Point> list = new ArrayList<>();
+                for (int cell = reached; cell != -1; cell = context.getPrevious(cell)) {
+                    list.add(new Point(grid.xOf(cell), grid.yOf(cell)));
+                }
+                Collections.reverse(list);
+                long b1 = BenchmarkSupport.allocatedBytes();
+                long t1 = System.nanoTime();
+                PackedPath packed = context.buildPath(grid, reached);
+                long b2 = BenchmarkSupport.allocatedBytes();
+                long t2 = System.nanoTime();
+                if (!packed.equals(list)) {
+                    throw new IllegalStateException("Packed route differs from the list for route " + i);
+                }
+                listBytes += b1 - b0;
+                packedBytes += b2 - b1;
+                listNanos += t1 - t0;
+                packedNanos += t2 - t1;
+                cells += packed.size();
+                turns += packed.getTurnCount();
+            }
+            System.out.printf("round %d, %d cells, %d turns: list %d bytes %.1f ms, packed %d bytes %.1f ms%n",
+                    round + 1, cells, turns, listBytes, listNanos / 1e6, packedBytes, packedNanos / 1e6);
+        }
+    }
+}
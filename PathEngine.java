@@ -0,0 +1,8 @@
+public interface PathEngine {
+    // Name shown to the user, e.g. "Dijkstra"
+    String getName();
+
+    // Searches from sourceCell and returns the nearest target cell, or -1 if none is reachable.
+    // Distances and predecessors are left in the context for path reconstruction.
+    int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context);
+}
@@ -2,27 +2,13 @@ import java.awt.Point;
 import java.util.*;
 
 public class PathFinder {
-    private static class Node implements Comparable<Node> {
-        int id;
-        int distance;
-
-        Node(int id, int distance) {
-            this.id = id;
-            this.distance = distance;
-        }
-
-        @Override
-        public int compareTo(Node other) {
-            return Integer.compare(this.distance, other.distance);
-        }
-    }
-
     public static class PathResult {
         public List<Point> path;
         public long timeTaken;
         public int distance;
         public String algorithm;
         public String errorMessage;
+        public SearchStats stats = new SearchStats();
 
         public PathResult(List<Point> path, long timeTaken, int distance, String algorithm) {
             this.path = path;
@@ -41,213 +27,149 @@ public class PathFinder {
         }
     }
 
-    private static int getDistance(Point p1, Point p2) {
-        // Using Manhattan distance for grid-based movement
-        return Math.abs(p2.x - p1.x) + Math.abs(p2.y - p1.y);
-    }
+    public static final PathEngine DIJKSTRA = new DijkstraEngine();
+    public static final PathEngine A_STAR = new AStarEngine();
+    public static final PathEngine JUMP_POINT = new JumpPointEngine();
+    public static final PathEngine HIERARCHICAL = new PerThreadEngine(
+            () -> new HierarchicalEngine(WarehouseConfig.CLUSTER_SIZE));
 
-    private static boolean isValidCoordinate(Point p) {
-        boolean valid = p.x >= 0 && p.x < 50 && p.y >= 0 && p.y < 50;
-        if (!valid) {
-            System.out.println("Invalid coordinate: (" + p.x + "," + p.y + ")");
-            System.out.println("Valid range: x[0-49], y[0-49]");
-        }
-        return valid;
-    }
+    static final int GRID_WIDTH = WarehouseConfig.GRID_WIDTH;
+    static final int GRID_HEIGHT = WarehouseConfig.GRID_HEIGHT;
 
-    private static int[][] buildProductGraph(List<Product> products) {
-        int n = products.size();
-        int[][] graph = new int[n][n];
-
-        // Build graph with distances between all products
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i != j) {
-                    Product p1 = products.get(i);
-                    Product p2 = products.get(j);
-                    Point point1 = new Point(p1.x, p1.y);
-                    Point point2 = new Point(p2.x, p2.y);
-
-                    // Only add edge if both points are within grid limits
-                    if (isValidCoordinate(point1) && isValidCoordinate(point2)) {
-                        graph[i][j] = getDistance(point1, point2);
-                    } else {
-                        graph[i][j] = Integer.MAX_VALUE; // No direct path if out of bounds
-                    }
-                }
-            }
-        }
-        return graph;
+    public static PathResult findShortestPath(List<Product> products, int sourceId, String targetName,
+            boolean useAStar) {
+        return findShortestPath(products, sourceId, targetName, useAStar ? A_STAR : DIJKSTRA);
     }
 
-    private static List<Point> buildPathThroughProducts(List<Product> products, List<Integer> productPath) {
-        List<Point> path = new ArrayList<>();
-
-        if (productPath.isEmpty()) {
-            return path;
-        }
-
-        for (int i = 0; i < productPath.size(); i++) {
-            Product current = products.get(productPath.get(i));
-            Point currentPoint = new Point(current.x, current.y);
-
-            if (!isValidCoordinate(currentPoint)) {
-                return new ArrayList<>(); // Return empty path if any point is invalid
-            }
-
-            if (i == 0) {
-                path.add(currentPoint);
-                continue;
-            }
-
-            Product prev = products.get(productPath.get(i - 1));
-           
-
-            // Calculate the direct path between points
-            int dx = current.x - prev.x;
-            int dy = current.y - prev.y;
-
-            // Move horizontally first, then vertically
-            if (dx != 0) {
-                int step = dx > 0 ? 1 : -1;
-                for (int x = prev.x; x != current.x; x += step) {
-                    Point p = new Point(x, prev.y);
-                    if (!isValidCoordinate(p)) {
-                        return new ArrayList<>(); // Return empty path if any point is invalid
-                    }
-                    path.add(p);
-                }
-            }
-
-            if (dy != 0) {
-                int step = dy > 0 ? 1 : -1;
-                for (int y = prev.y; y != current.y; y += step) {
-                    Point p = new Point(current.x, y);
-                    if (!isValidCoordinate(p)) {
-                        return new ArrayList<>(); // Return empty path if any point is invalid
-                    }
-                    path.add(p);
-                }
-            }
-
-            path.add(currentPoint);
-        }
-
-        return path;
+    public static PathResult findShortestPath(List<Product> products, int sourceId, String targetName,
+            PathEngine engine) {
+        long buildStart = System.nanoTime();
+        LayoutSnapshot layout = LayoutSnapshot.of(products, GRID_WIDTH, GRID_HEIGHT, WarehouseConfig.FLOOR_PLAN);
+        long buildNanos = System.nanoTime() - buildStart;
+        PathResult result = findShortestPath(layout, sourceId, targetName, engine);
+        result.stats.buildNanos = buildNanos;
+        return result;
     }
 
-    public static PathResult findShortestPath(List<Product> products, int sourceId, String targetName,
-            boolean useAStar) {
-        if (useAStar) {
-            return AStarPathFinder.findShortestPath(products, sourceId, targetName);
+    // Safe to call from several threads at once against the same snapshot
+    public static PathResult findShortestPath(LayoutSnapshot layout, int sourceId, String targetName,
+            PathEngine engine) {
+        long startTime = System.nanoTime();
+        GridGraph grid = layout.getGrid();
+        // Jump points and the cluster abstraction only see the grid, on a floor with step costs or
+        // one-way aisles A* over the floor plan gives the right route instead
+        if (!grid.isUniform() && (engine == JUMP_POINT || engine == HIERARCHICAL)) {
+            engine = A_STAR;
         }
-
-        long startTime = System.currentTimeMillis();
+        String algorithm = engine.getName();
 
         // Find source product and potential targets
-        Product source = null;
-        int sourceIndex = -1;
-        List<Integer> targetIndices = new ArrayList<>();
-
-        for (int i = 0; i < products.size(); i++) {
-            Product p = products.get(i);
-            if (p.id == sourceId) {
-                source = p;
-                sourceIndex = i;
-                System.out.println("Found source product: ID=" + p.id + ", Name=" + p.name +
-                        ", Coordinates=(" + p.x + "," + p.y + ")");
-            }
-            if (p.name.equalsIgnoreCase(targetName)) {
-                targetIndices.add(i);
-                System.out.println("Found target product: ID=" + p.id + ", Name=" + p.name +
-                        ", Coordinates=(" + p.x + "," + p.y + ")");
-            }
-        }
+        Product source = layout.getProduct(sourceId);
+        TargetSet targets = layout.getTargets(targetName);
 
-        if (source == null || targetIndices.isEmpty()) {
+        if (source == null || targets == null) {
             String error = source == null ? "Source product not found" : "No target products found";
-            return new PathResult(new ArrayList<>(), 0, 0, "Dijkstra", error);
+            return new PathResult(new ArrayList<>(), 0, 0, algorithm, error);
         }
 
         // Validate source coordinates
-        Point sourcePoint = new Point(source.x, source.y);
-        if (!isValidCoordinate(sourcePoint)) {
-            return new PathResult(new ArrayList<>(), 0, 0, "Dijkstra",
-                    "Source coordinates (" + source.x + "," + source.y + ") are invalid");
+        if (!grid.contains(source.x, source.y)) {
+            return new PathResult(new ArrayList<>(), 0, 0, algorithm, "Source coordinates (" + source.x + ","
+                    + source.y + ") are outside x[0-" + (grid.getWidth() - 1) + "], y[0-" + (grid.getHeight() - 1) + "]");
         }
 
         // Validate target coordinates
-        boolean hasValidTarget = false;
-        for (int targetIndex : targetIndices) {
-            Product target = products.get(targetIndex);
-            Point targetPoint = new Point(target.x, target.y);
-            if (isValidCoordinate(targetPoint)) {
-                hasValidTarget = true;
-                break;
-            }
-        }
-
-        if (!hasValidTarget) {
-            return new PathResult(new ArrayList<>(), 0, 0, "Dijkstra",
+        if (targets.isEmpty()) {
+            return new PathResult(new ArrayList<>(), 0, 0, algorithm,
                     "No target products with valid coordinates found");
         }
 
-        // Build the graph
-        int[][] graph = buildProductGraph(products);
-
-        // Use Dijkstra's algorithm
-        int n = products.size();
-        int[] dist = new int[n];
-        int[] prev = new int[n];
-        Arrays.fill(dist, Integer.MAX_VALUE);
-        Arrays.fill(prev, -1);
-        dist[sourceIndex] = 0;
-
-        PriorityQueue<Node> pq = new PriorityQueue<>();
-        pq.offer(new Node(sourceIndex, 0));
-
-        // Find shortest paths to all nodes
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-
-            for (int i = 0; i < n; i++) {
-                if (graph[current.id][i] > 0 && graph[current.id][i] != Integer.MAX_VALUE) {
-                    int newDist = dist[current.id] + graph[current.id][i];
-                    if (newDist < dist[i]) {
-                        dist[i] = newDist;
-                        prev[i] = current.id;
-                        pq.offer(new Node(i, newDist));
-                    }
-                }
+        // The nearest bin by |dx| + |dy| with an open L-shaped walk to it needs no search at all.
+        // Not when the explored cells are wanted, those only come from running the engine.
+        SearchContext context = SearchContext.forCurrentThread();
+        List<Point> straight = context.isCapturingExplored() ? null
+                : straightRoute(grid, source.x, source.y, targets);
+        if (straight != null) {
+            PathResult result = new PathResult(straight, 0, straight.size() - 1, algorithm);
+            result.stats.straightRoute = true;
+            result.stats.searchNanos = System.nanoTime() - startTime;
+            result.timeTaken = result.stats.searchNanos / 1_000_000;
+            return result;
+        }
+
+        context.reset(grid.getCellCount());
+        context.startStats();
+        int targetCell = engine.search(grid, grid.cellOf(source.x, source.y), targets, context);
+        PathResult result;
+        if (targetCell == -1) {
+            result = new PathResult(new ArrayList<>(), 0, 0, algorithm, "No path found to any target product");
+        } else {
+            // Build path to nearest target
+            List<Point> path = context.buildPath(grid, targetCell);
+            result = new PathResult(path, 0, context.getDistance(targetCell), algorithm);
+        }
+
+        // A failed search is the slowest kind, so it reports its statistics too
+        long elapsed = System.nanoTime() - startTime;
+        result.timeTaken = elapsed / 1_000_000;
+        result.stats.searchNanos = elapsed;
+        context.copyStatsTo(result.stats);
+        return result;
+    }
+
+    // Most bins tied for nearest that are tried before falling back to a search
+    private static final int STRAIGHT_ROUTE_TRIES = 16;
+
+    // No route can be shorter than |dx| + |dy|, so when one of the nearest bins by that measure can
+    // be walked to along an L of open cells, the L is a shortest route. Returns null otherwise.
+    private static PackedPath straightRoute(GridGraph grid, int x, int y, TargetSet targets) {
+        if (!grid.isUniform()) {
+            return null; // on a floor with step costs or one-way aisles an open L may not be shortest
+        }
+        int nearest = targets.nearest(x, y);
+        int limit = Math.abs(targets.getX(nearest) - x) + Math.abs(targets.getY(nearest) - y);
+        int[] tied = targets.within(x, y, limit);
+        for (int i = 0; i < tied.length && i < STRAIGHT_ROUTE_TRIES; i++) {
+            int tx = targets.getX(tied[i]);
+            int ty = targets.getY(tied[i]);
+            if (isOpenRun(grid, x, y, tx, y, tx, ty) && isOpenRun(grid, tx, y, tx, ty, tx, ty)) {
+                return straightPath(x, y, tx, y, tx, ty);
+            }
+            if (isOpenRun(grid, x, y, x, ty, tx, ty) && isOpenRun(grid, x, ty, tx, ty, tx, ty)) {
+                return straightPath(x, y, x, ty, tx, ty);
             }
         }
+        return null;
+    }
 
-        // Find the nearest target
-        int nearestTargetIndex = -1;
-        int minDistance = Integer.MAX_VALUE;
-        for (int targetIndex : targetIndices) {
-            if (dist[targetIndex] < minDistance) {
-                minDistance = dist[targetIndex];
-                nearestTargetIndex = targetIndex;
+    // True if every cell after (x1, y1) up to (x2, y2) is open, apart from the bin at the end
+    private static boolean isOpenRun(GridGraph grid, int x1, int y1, int x2, int y2, int endX, int endY) {
+        int dx = Integer.signum(x2 - x1);
+        int dy = Integer.signum(y2 - y1);
+        int steps = Math.abs(x2 - x1) + Math.abs(y2 - y1);
+        for (int i = 1; i <= steps; i++) {
+            int x = x1 + dx * i;
+            int y = y1 + dy * i;
+            if (grid.isBlocked(x, y) && (x != endX || y != endY)) {
+                return false;
             }
         }
+        return true;
+    }
 
-        if (nearestTargetIndex == -1) {
-            return new PathResult(new ArrayList<>(), 0, 0, "Dijkstra",
-                    "No path found to any target product");
+    private static PackedPath straightPath(int x, int y, int cornerX, int cornerY, int endX, int endY) {
+        PackedPath path = new PackedPath();
+        path.append(x, y);
+        for (int cx = x, cy = y; cx != cornerX || cy != cornerY;) {
+            cx += Integer.signum(cornerX - cx);
+            cy += Integer.signum(cornerY - cy);
+            path.append(cx, cy);
         }
-
-        // Build path to nearest target
-        List<Integer> productPath = new ArrayList<>();
-        int current = nearestTargetIndex;
-        while (current != -1) {
-            productPath.add(0, current);
-            current = prev[current];
+        for (int cx = cornerX, cy = cornerY; cx != endX || cy != endY;) {
+            cx += Integer.signum(endX - cx);
+            cy += Integer.signum(endY - cy);
+            path.append(cx, cy);
         }
-
-        List<Point> path = buildPathThroughProducts(products, productPath);
-        long timeTaken = System.currentTimeMillis() - startTime;
-
-        return new PathResult(path, timeTaken, minDistance, "Dijkstra");
+        return path;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+public class PathQuery {
+    public final int sourceId;
+    public final String targetName;
+    public final PathEngine engine;
+
+    public PathQuery(int sourceId, String targetName, PathEngine engine) {
+        this.sourceId = sourceId;
+        this.targetName = targetName;
+        this.engine = engine;
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.*;
+
+// Time and allocation per query of the Dijkstra and A* searches PathFinder runs from a product
+// list, which builds the layout each time as the app does.
+//   java PathSearchBenchmark [queries]
+// 600 bins over 40 names on a 50 x 50 floor, 3000 queries alternating Dijkstra and A* by default.
+public class PathSearchBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        BenchmarkSupport.setDefault("warehouse.width", "50");
+        BenchmarkSupport.setDefault("warehouse.height", "50");
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int width = WarehouseConfig.GRID_WIDTH;
+        int height = WarehouseConfig.GRID_HEIGHT;
+        int bins = Math.min(600, width * height / 2);
+        Random random = new Random(2);
+        List<Product> products = new ArrayList<>();
+        Set<Integer> taken = new HashSet<>();
+        while (products.size() < bins) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (taken.add(y * width + x)) {
+                products.add(new Product(products.size(), "P" + random.nextInt(40), x, y, 1));
+            }
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytesBefore = BenchmarkSupport.allocatedBytes();
+            long startTime = System.nanoTime();
+            long pushes = 0;
+            for (int q = 0; q < queries; q++) {
+                PathFinder.PathResult result = PathFinder.findShortestPath(products, q % bins, "P" + (q % 40),
+                        q % 2 == 0);
+                pushes += result.stats.pushes;
+            }
+            long elapsed = System.nanoTime() - startTime;
+            long bytes = BenchmarkSupport.allocatedBytes() - bytesBefore;
+            System.out.printf("round %d: %.1f us and %d bytes per query, %d heap pushes per query%n", round + 1,
+                    elapsed / 1e3 / queries, bytesBefore < 0 ? -1 : bytes / queries, pushes / queries);
+        }
+    }
+}
@@ -6,14 +6,16 @@ import java.util.ArrayList;
 public class PathVisualizationPanel extends JPanel {
     private List<Product> products;
     private List<Point> path;
+    private int[] explored = new int[0]; // cells the search expanded, drawn under the path
+    private int exploredWidth;
     private int selectedProductId = -1;
     private int targetProductId = -1;
     private static final int GRID_SIZE = 20;
     private static final int PRODUCT_SIZE = 16;
     private static final int PADDING = 20;
     private JScrollPane scrollPane;
-    private static final int MAX_X = 30;
-    private static final int MAX_Y = 30;
+    private static final int MAX_X = WarehouseConfig.GRID_WIDTH;
+    private static final int MAX_Y = WarehouseConfig.GRID_HEIGHT;
     private static final int START_NODE_X = 0;
     private static final int START_NODE_Y = 0;
 
@@ -37,14 +39,46 @@ public class PathVisualizationPanel extends JPanel {
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-                // Draw grid
+                // Draw grid, only the cells inside the visible area so large floors stay responsive
                 g2d.setColor(new Color(240, 240, 240));
-                for (int x = 0; x < MAX_X; x++) {
-                    for (int y = 0; y < MAX_Y; y++) {
+                Rectangle clip = g2d.getClipBounds();
+                int firstX = 0, lastX = MAX_X, firstY = 0, lastY = MAX_Y;
+                if (clip != null) {
+                    firstX = Math.max(0, (clip.x - PADDING) / GRID_SIZE - 1);
+                    lastX = Math.min(MAX_X, (clip.x + clip.width - PADDING) / GRID_SIZE + 1);
+                    firstY = Math.max(0, (clip.y - PADDING) / GRID_SIZE - 1);
+                    lastY = Math.min(MAX_Y, (clip.y + clip.height - PADDING) / GRID_SIZE + 1);
+                }
+                for (int x = firstX; x < lastX; x++) {
+                    for (int y = firstY; y < lastY; y++) {
                         g2d.drawRect(x * GRID_SIZE + PADDING, y * GRID_SIZE + PADDING, GRID_SIZE, GRID_SIZE);
                     }
                 }
 
+                // Racks and walls of the floor plan
+                FloorPlan floor = WarehouseConfig.FLOOR_PLAN;
+                if (floor != null) {
+                    g2d.setColor(new Color(160, 160, 160));
+                    for (int x = firstX; x < lastX; x++) {
+                        for (int y = firstY; y < lastY; y++) {
+                            if (floor.isWall(x, y)) {
+                                g2d.fillRect(x * GRID_SIZE + PADDING, y * GRID_SIZE + PADDING, GRID_SIZE, GRID_SIZE);
+                            }
+                        }
+                    }
+                }
+
+                // Shade the cells the search expanded
+                g2d.setColor(new Color(255, 236, 179));
+                for (int cell : explored) {
+                    int x = cell % exploredWidth;
+                    int y = cell / exploredWidth;
+                    if (x >= firstX && x < lastX && y >= firstY && y < lastY) {
+                        g2d.fillRect(x * GRID_SIZE + PADDING + 1, y * GRID_SIZE + PADDING + 1,
+                                GRID_SIZE - 1, GRID_SIZE - 1);
+                    }
+                }
+
                 // Draw warehouse start node
                 g2d.setColor(new Color(255, 140, 0)); // Orange color for start node
                 g2d.fillRect(
@@ -59,7 +93,19 @@ public class PathVisualizationPanel extends JPanel {
                         START_NODE_Y * GRID_SIZE + PADDING + GRID_SIZE - 2);
 
                 // Draw path
-                if (!path.isEmpty()) {
+                if (path instanceof PackedPath) {
+                    // Straight runs are one line each, the cells along them are never expanded
+                    PackedPath packed = (PackedPath) path;
+                    g2d.setColor(new Color(70, 130, 180));
+                    g2d.setStroke(new BasicStroke(2));
+                    for (int i = 1; i < packed.getTurnCount(); i++) {
+                        g2d.drawLine(
+                                packed.getTurnX(i - 1) * GRID_SIZE + PADDING + GRID_SIZE / 2,
+                                packed.getTurnY(i - 1) * GRID_SIZE + PADDING + GRID_SIZE / 2,
+                                packed.getTurnX(i) * GRID_SIZE + PADDING + GRID_SIZE / 2,
+                                packed.getTurnY(i) * GRID_SIZE + PADDING + GRID_SIZE / 2);
+                    }
+                } else if (!path.isEmpty()) {
                     g2d.setColor(new Color(70, 130, 180));
                     g2d.setStroke(new BasicStroke(2));
                     Point prev = path.get(0);
@@ -125,8 +171,17 @@ public class PathVisualizationPanel extends JPanel {
         repaint();
     }
 
+    // Overlays the cells a search expanded, numbered y * gridWidth + x
+    public void setExplored(int[] cells, int gridWidth) {
+        this.explored = cells;
+        this.exploredWidth = gridWidth;
+        repaint();
+    }
+
     public void clearPath() {
-        this.path.clear();
+        // The list may still be held by a cached result, so drop it rather than clearing it
+        this.path = new ArrayList<>();
+        this.explored = new int[0];
         this.selectedProductId = -1;
         this.targetProductId = -1;
         repaint();
@@ -0,0 +1,24 @@
+import java.util.function.Supplier;
+
+// An engine that keeps state between searches, shared by every thread. Each thread searches with
+// its own copy, so batch workers run side by side instead of queueing on one lock, and each copy
+// still carries its state from one search to the next on its thread.
+public class PerThreadEngine implements PathEngine {
+    private final String name;
+    private final ThreadLocal<PathEngine> local;
+
+    public PerThreadEngine(Supplier<PathEngine> factory) {
+        this.name = factory.get().getName();
+        this.local = ThreadLocal.withInitial(factory);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int search(GridGraph grid, int sourceCell, TargetSet targets, SearchContext context) {
+        return local.get().search(grid, sourceCell, targets, context);
+    }
+}
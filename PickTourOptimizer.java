@@ -0,0 +1,432 @@
+import java.awt.Point;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class PickTourOptimizer {
+    // Bins considered per order, the nearest ones by walking distance from the start
+    private static final int MAX_CANDIDATES = 64;
+
+    // Randomised restarts pick among this many nearest bins when building a tour
+    private static final int RESTART_CHOICES = 3;
+
+    public static class PickTour {
+        public final List<Product> stops;
+        public final int[] pickQuantities;
+        public final int[] legDistances; // walking distance from the previous stop
+        public final int totalDistance; // start -> every stop -> back to start
+        public final List<Point> route;
+        public final String errorMessage;
+
+        PickTour(List<Product> stops, int[] pickQuantities, int[] legDistances, int totalDistance,
+                List<Point> route, String errorMessage) {
+            this.stops = stops;
+            this.pickQuantities = pickQuantities;
+            this.legDistances = legDistances;
+            this.totalDistance = totalDistance;
+            this.route = route;
+            this.errorMessage = errorMessage;
+        }
+
+        static PickTour failed(String errorMessage) {
+            return new PickTour(new ArrayList<>(), new int[0], new int[0], 0, new ArrayList<>(), errorMessage);
+        }
+    }
+
+    // A candidate tour, nodes index into the distance matrix where 0 is the start
+    private static class Tour {
+        int[] nodes;
+        int size;
+        int quantity;
+        int cost;
+
+        Tour(int capacity) {
+            nodes = new int[capacity];
+        }
+    }
+
+    // Chooses which bins to pick from and in which order so the closed walk from the start is shortest
+    public static PickTour optimize(LayoutSnapshot layout, int startX, int startY, List<Product> bins,
+            int orderQuantity, long timeBudgetMillis, int restarts) {
+        GridGraph grid = layout.getGrid();
+        if (!grid.contains(startX, startY)) {
+            return PickTour.failed("Start point is outside the warehouse");
+        }
+        int startCell = grid.cellOf(startX, startY);
+        int[] field = new int[grid.getCellCount()];
+        int[] queue = new int[grid.getCellCount()];
+
+        // Keep the bins nearest to the start, but enough of them to cover the order. With one-way
+        // aisles a bin also has to lead back to the start, which makes every leg between kept bins
+        // walkable too.
+        grid.distancesFrom(startCell, field, queue);
+        int[] back = field;
+        if (!grid.isUniform()) {
+            back = new int[grid.getCellCount()];
+            grid.distancesTo(startCell, back, queue);
+        }
+        List<Product> reachable = new ArrayList<>();
+        for (Product p : bins) {
+            if (p.quantity > 0 && grid.contains(p.x, p.y) && field[grid.cellOf(p.x, p.y)] != Integer.MAX_VALUE
+                    && back[grid.cellOf(p.x, p.y)] != Integer.MAX_VALUE) {
+                reachable.add(p);
+            }
+        }
+        reachable.sort(Comparator.comparingInt(p -> field[grid.cellOf(p.x, p.y)]));
+        List<Product> pool = new ArrayList<>();
+        int poolQuantity = 0;
+        for (Product p : reachable) {
+            if (pool.size() >= MAX_CANDIDATES && poolQuantity >= orderQuantity) {
+                break;
+            }
+            pool.add(p);
+            poolQuantity += p.quantity;
+        }
+        if (poolQuantity < orderQuantity) {
+            return PickTour.failed("Not enough reachable stock for this order");
+        }
+
+        // Walking distances between the start (node 0) and every bin in the pool, dist[i][j] from i
+        // to j, which one-way aisles can make differ from dist[j][i]
+        int m = pool.size() + 1;
+        int[] cells = new int[m];
+        int[] quantities = new int[m];
+        cells[0] = startCell;
+        for (int i = 1; i < m; i++) {
+            Product p = pool.get(i - 1);
+            cells[i] = grid.cellOf(p.x, p.y);
+            quantities[i] = p.quantity;
+        }
+        int[][] dist = new int[m][m];
+        for (int i = 0; i < m; i++) {
+            grid.distancesFrom(cells[i], field, queue);
+            for (int j = 0; j < m; j++) {
+                dist[i][j] = field[cells[j]];
+            }
+        }
+
+        // Independent restarts share nothing but the read-only matrix, so they run in parallel
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        Tour best = IntStream.range(0, Math.max(restarts, 1)).parallel()
+                .mapToObj(seed -> solve(dist, quantities, orderQuantity, seed, deadline))
+                .min(Comparator.comparingInt((Tour t) -> t.cost).thenComparingInt(t -> t.size))
+                .get();
+
+        // Take stock in visiting order, the last stop may only be partly emptied
+        List<Product> stops = new ArrayList<>();
+        int[] picks = new int[best.size];
+        int[] legs = new int[best.size];
+        int remaining = orderQuantity;
+        int previous = 0;
+        for (int i = 0; i < best.size; i++) {
+            int node = best.nodes[i];
+            stops.add(pool.get(node - 1));
+            picks[i] = Math.min(quantities[node], remaining);
+            remaining -= picks[i];
+            legs[i] = dist[previous][node];
+            previous = node;
+        }
+
+        return new PickTour(stops, picks, legs, best.cost, buildRoute(layout, cells, best), "");
+    }
+
+    private static Tour solve(int[][] dist, int[] quantities, int orderQuantity, int seed, long deadline) {
+        Random random = new Random(seed);
+        int m = dist.length;
+        boolean symmetric = isSymmetric(dist);
+        Tour tour = new Tour(m);
+        boolean[] selected = new boolean[m];
+
+        // Nearest-neighbour construction, restart 0 is fully greedy. Odd restarts weigh
+        // distance by how much of the remaining order a bin covers, so big bins further out get a look in.
+        int current = 0;
+        int[] nearest = new int[RESTART_CHOICES];
+        long[] score = new long[RESTART_CHOICES];
+        boolean byCoverage = seed % 2 == 1;
+        while (tour.quantity < orderQuantity) {
+            int found = 0;
+            Arrays.fill(nearest, -1);
+            for (int c = 1; c < m; c++) {
+                if (selected[c]) {
+                    continue;
+                }
+                long cScore = dist[current][c];
+                if (byCoverage) {
+                    cScore = cScore * orderQuantity / Math.min(quantities[c], orderQuantity - tour.quantity);
+                }
+                // Keep the RESTART_CHOICES best unselected bins, in order
+                for (int k = 0; k < RESTART_CHOICES; k++) {
+                    if (nearest[k] == -1 || cScore < score[k]) {
+                        System.arraycopy(nearest, k, nearest, k + 1, RESTART_CHOICES - k - 1);
+                        System.arraycopy(score, k, score, k + 1, RESTART_CHOICES - k - 1);
+                        nearest[k] = c;
+                        score[k] = cScore;
+                        found = Math.min(found + 1, RESTART_CHOICES);
+                        break;
+                    }
+                }
+            }
+            int next = nearest[seed <= 1 ? 0 : random.nextInt(found)];
+            selected[next] = true;
+            tour.nodes[tour.size++] = next;
+            tour.quantity += quantities[next];
+            current = next;
+        }
+        tour.cost = cost(dist, tour.nodes, tour.size);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(dist, tour, symmetric) || orOpt(dist, tour)
+                    || dropStop(dist, quantities, orderQuantity, tour, selected)
+                    || swapStop(dist, quantities, orderQuantity, tour, selected)
+                    || insertAndDrop(dist, quantities, orderQuantity, tour, selected);
+        }
+        return tour;
+    }
+
+    private static int cost(int[][] dist, int[] nodes, int size) {
+        int total = 0;
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            total += dist[previous][nodes[i]];
+            previous = nodes[i];
+        }
+        return total + dist[previous][0];
+    }
+
+    // Node at a position of the closed walk, positions -1 and size are the start
+    private static int at(Tour tour, int position) {
+        return position < 0 || position >= tour.size ? 0 : tour.nodes[position];
+    }
+
+    // Reverses the first segment whose reversal shortens the walk. The two end legs give the change
+    // when distances are the same both ways; otherwise the reversed segment is walked the other way
+    // round and has to be costed again.
+    private static boolean twoOpt(int[][] dist, Tour tour, boolean symmetric) {
+        for (int i = 0; i < tour.size - 1; i++) {
+            for (int j = i + 1; j < tour.size; j++) {
+                int before = at(tour, i - 1);
+                int after = at(tour, j + 1);
+                int delta = dist[before][tour.nodes[j]] + dist[tour.nodes[i]][after]
+                        - dist[before][tour.nodes[i]] - dist[tour.nodes[j]][after];
+                if (!symmetric) {
+                    for (int k = i; k < j; k++) {
+                        delta += dist[tour.nodes[k + 1]][tour.nodes[k]] - dist[tour.nodes[k]][tour.nodes[k + 1]];
+                    }
+                }
+                if (delta < 0) {
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        int tmp = tour.nodes[a];
+                        tour.nodes[a] = tour.nodes[b];
+                        tour.nodes[b] = tmp;
+                    }
+                    tour.cost += delta;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSymmetric(int[][] dist) {
+        for (int i = 0; i < dist.length; i++) {
+            for (int j = i + 1; j < dist.length; j++) {
+                if (dist[i][j] != dist[j][i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Moves a run of up to three stops to the first place where it shortens the walk
+    private static boolean orOpt(int[][] dist, Tour tour) {
+        int[] rest = new int[tour.size];
+        int[] candidate = new int[tour.size];
+        for (int length = 1; length <= 3 && length < tour.size; length++) {
+            for (int i = 0; i + length <= tour.size; i++) {
+                // The walk with the segment cut out
+                int n = 0;
+                for (int k = 0; k < tour.size; k++) {
+                    if (k < i || k >= i + length) {
+                        rest[n++] = tour.nodes[k];
+                    }
+                }
+                for (int insertAt = 0; insertAt <= n; insertAt++) {
+                    if (insertAt == i) {
+                        continue;
+                    }
+                    System.arraycopy(rest, 0, candidate, 0, insertAt);
+                    System.arraycopy(tour.nodes, i, candidate, insertAt, length);
+                    System.arraycopy(rest, insertAt, candidate, insertAt + length, n - insertAt);
+                    int candidateCost = cost(dist, candidate, tour.size);
+                    if (candidateCost < tour.cost) {
+                        System.arraycopy(candidate, 0, tour.nodes, 0, tour.size);
+                        tour.cost = candidateCost;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Drops a stop the order can do without
+    private static boolean dropStop(int[][] dist, int[] quantities, int orderQuantity, Tour tour,
+            boolean[] selected) {
+        for (int i = 0; i < tour.size; i++) {
+            int node = tour.nodes[i];
+            if (tour.quantity - quantities[node] < orderQuantity) {
+                continue;
+            }
+            int before = at(tour, i - 1);
+            int after = at(tour, i + 1);
+            int delta = dist[before][after] - dist[before][node] - dist[node][after];
+            if (delta <= 0) {
+                System.arraycopy(tour.nodes, i + 1, tour.nodes, i, tour.size - i - 1);
+                tour.size--;
+                tour.quantity -= quantities[node];
+                tour.cost += delta;
+                selected[node] = false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Replaces a stop with an unused bin inserted at its cheapest position
+    private static boolean swapStop(int[][] dist, int[] quantities, int orderQuantity, Tour tour,
+            boolean[] selected) {
+        for (int i = 0; i < tour.size; i++) {
+            int node = tour.nodes[i];
+            int before = at(tour, i - 1);
+            int after = at(tour, i + 1);
+            int removeDelta = dist[before][after] - dist[before][node] - dist[node][after];
+
+            for (int c = 1; c < dist.length; c++) {
+                if (selected[c] || tour.quantity - quantities[node] + quantities[c] < orderQuantity) {
+                    continue;
+                }
+                // Cheapest insertion into the walk without stop i
+                int bestInsert = Integer.MAX_VALUE;
+                int bestPosition = -1;
+                int previous = 0;
+                for (int p = 0; p <= tour.size; p++) {
+                    if (p == i) {
+                        continue;
+                    }
+                    int next = p == tour.size ? 0 : tour.nodes[p];
+                    int insert = dist[previous][c] + dist[c][next] - dist[previous][next];
+                    if (insert < bestInsert) {
+                        bestInsert = insert;
+                        bestPosition = p;
+                    }
+                    previous = next;
+                }
+                if (removeDelta + bestInsert < 0) {
+                    System.arraycopy(tour.nodes, i + 1, tour.nodes, i, tour.size - i - 1);
+                    tour.size--;
+                    int position = bestPosition > i ? bestPosition - 1 : bestPosition;
+                    System.arraycopy(tour.nodes, position, tour.nodes, position + 1, tour.size - position);
+                    tour.nodes[position] = c;
+                    tour.size++;
+                    tour.quantity += quantities[c] - quantities[node];
+                    tour.cost += removeDelta + bestInsert;
+                    selected[node] = false;
+                    selected[c] = true;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Adds an unused bin and then drops every stop it makes redundant, which lets one
+    // well-stocked bin replace several small ones
+    private static boolean insertAndDrop(int[][] dist, int[] quantities, int orderQuantity, Tour tour,
+            boolean[] selected) {
+        int[] trial = new int[tour.nodes.length];
+        for (int c = 1; c < dist.length; c++) {
+            if (selected[c]) {
+                continue;
+            }
+            // Cheapest insertion of c
+            int bestPosition = 0;
+            int bestInsert = Integer.MAX_VALUE;
+            for (int p = 0; p <= tour.size; p++) {
+                int insert = dist[at(tour, p - 1)][c] + dist[c][at(tour, p)] - dist[at(tour, p - 1)][at(tour, p)];
+                if (insert < bestInsert) {
+                    bestInsert = insert;
+                    bestPosition = p;
+                }
+            }
+            System.arraycopy(tour.nodes, 0, trial, 0, bestPosition);
+            trial[bestPosition] = c;
+            System.arraycopy(tour.nodes, bestPosition, trial, bestPosition + 1, tour.size - bestPosition);
+            int size = tour.size + 1;
+            int quantity = tour.quantity + quantities[c];
+            int trialCost = tour.cost + bestInsert;
+
+            // Greedily drop the stop that saves the most while the order stays covered
+            while (true) {
+                int bestDrop = -1;
+                int bestSaving = 0;
+                for (int i = 0; i < size; i++) {
+                    if (quantity - quantities[trial[i]] < orderQuantity) {
+                        continue;
+                    }
+                    int before = i == 0 ? 0 : trial[i - 1];
+                    int after = i == size - 1 ? 0 : trial[i + 1];
+                    int saving = dist[before][trial[i]] + dist[trial[i]][after] - dist[before][after];
+                    if (bestDrop == -1 || saving > bestSaving) {
+                        bestDrop = i;
+                        bestSaving = saving;
+                    }
+                }
+                if (bestDrop == -1) {
+                    break;
+                }
+                quantity -= quantities[trial[bestDrop]];
+                trialCost -= bestSaving;
+                System.arraycopy(trial, bestDrop + 1, trial, bestDrop, size - bestDrop - 1);
+                size--;
+            }
+
+            if (trialCost < tour.cost) {
+                for (int i = 0; i < tour.size; i++) {
+                    selected[tour.nodes[i]] = false;
+                }
+                System.arraycopy(trial, 0, tour.nodes, 0, size);
+                tour.size = size;
+                tour.quantity = quantity;
+                tour.cost = trialCost;
+                for (int i = 0; i < tour.size; i++) {
+                    selected[tour.nodes[i]] = true;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Expands the stop sequence into the cells the picker walks, ending back at the start
+    private static List<Point> buildRoute(LayoutSnapshot layout, int[] cells, Tour tour) {
+        GridGraph grid = layout.getGrid();
+        SearchContext context = SearchContext.forCurrentThread();
+        PackedPath route = new PackedPath();
+        int from = cells[0];
+        route.append(grid.xOf(from), grid.yOf(from));
+        for (int i = 0; i <= tour.size; i++) {
+            int to = i == tour.size ? cells[0] : cells[tour.nodes[i]];
+            TargetSet target = new TargetSet(grid);
+            target.add(grid.xOf(to), grid.yOf(to));
+            context.reset(grid.getCellCount());
+            int reached = PathFinder.A_STAR.search(grid, from, target.seal(), context);
+            if (reached == -1) {
+                return new ArrayList<>();
+            }
+            route.appendAll(context.buildPath(grid, reached), 1);
+            from = to;
+        }
+        return route;
+    }
+}
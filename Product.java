@@ -1,12 +1,14 @@
 public class Product implements Comparable<Product> {
     public int id;
     public String name;
+    public int nameCode; // ProductNames code of the name, equal for names that differ only in case
     public int x, y;
     public int quantity;
 
     public Product(int id, String name, int x, int y, int quantity) {
         this.id = id;
         this.name = name;
+        this.nameCode = name == null ? -1 : ProductNames.codeOf(name);
         this.x = x;
         this.y = y;
         this.quantity = quantity;
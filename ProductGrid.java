@@ -2,129 +2,349 @@ import java.awt.Point;
 import java.util.*;
 
 public class ProductGrid {
-    private static final int GRID_WIDTH = 50;
-    private static final int GRID_HEIGHT = 50;
+    private static final int GRID_WIDTH = WarehouseConfig.GRID_WIDTH;
+    private static final int GRID_HEIGHT = WarehouseConfig.GRID_HEIGHT;
 
-    // Main grid storage using 2D array for quick coordinate lookup
-    private Product[][] grid;
+    // Racks and aisles of the floor, null when it is open everywhere
+    private final FloorPlan floorPlan = WarehouseConfig.FLOOR_PLAN;
 
-    // Additional data structures for efficient operations
-    private Map<Integer, Product> productById;
-    private Map<String, List<Product>> productsByName;
-    private List<Product> allProducts;
+    // The bins themselves, by id, by cell and by name
+    private final ProductStore store;
+
+    // Bumped whenever a bin is added, moved or removed, so cached routing data can tell it is stale
+    private long layoutVersion;
+
+    // Bin counts and units by rectangle, built on the first area total and kept up to date after
+    private Fenwick2D areaTotals;
+
+    // Bins ordered by quantity, built on the first threshold query and kept up to date after
+    private QuantityIndex quantityIndex;
+
+    // Storable empty cells, built on the first free-space query and kept up to date after
+    private FreeCellIndex freeCells;
+
+    // Bins and units per name code, built on the first per-name total and kept up to date after
+    private NameTotals nameTotals;
+
+    // Names by trigram, built on the first name search. It covers every name ProductNames knows,
+    // so it survives clear() and only has to catch up with names that are new since last time.
+    private NameSearchIndex nameSearch;
+
+    // Names the last search ranked, reused while the caller pages through them and the layout,
+    // which decides what names still have bins, stays the same
+    private String lastSearchTerm;
+    private int[] lastSearchCodes;
+    private long lastSearchVersion;
+
+    // Told about every cell whose occupant changes, e.g. replanners repairing active routes
+    private final List<LayoutListener> listeners = new ArrayList<>();
 
     public ProductGrid() {
-        grid = new Product[GRID_WIDTH][GRID_HEIGHT];
-        productById = new HashMap<>();
-        productsByName = new HashMap<>();
-        allProducts = new ArrayList<>();
+        this(createStore());
+    }
+
+    public ProductGrid(ProductStore store) {
+        this.store = store;
+    }
+
+    // -Dwarehouse.store=columnar keeps the bins in primitive columns instead of Product objects,
+    // -Dwarehouse.store=mapped in files under -Dwarehouse.storeDir
+    private static ProductStore createStore() {
+        if ("columnar".equalsIgnoreCase(WarehouseConfig.PRODUCT_STORE)) {
+            return new ColumnarProductStore(GRID_WIDTH, GRID_HEIGHT);
+        }
+        if ("mapped".equalsIgnoreCase(WarehouseConfig.PRODUCT_STORE)) {
+            return MappedProductStore.openConfigured(WarehouseConfig.STORE_DIRECTORY, GRID_WIDTH, GRID_HEIGHT);
+        }
+        return new HeapProductStore(GRID_WIDTH, GRID_HEIGHT);
     }
 
     public boolean addProduct(Product product) {
-        // Validate coordinates
-        if (!isValidCoordinate(product.x, product.y)) {
+        // Validate coordinates, bins cannot stand on a rack or wall
+        if (!isStorable(product.x, product.y)) {
             return false;
         }
 
-        // Check if position is already occupied
-        if (grid[product.x][product.y] != null) {
+        // Check if position is already occupied, or the id already stands somewhere else
+        if (store.peekAt(product.x, product.y) != null || store.peekById(product.id) != null) {
             return false;
         }
 
-        // Add to grid
-        grid[product.x][product.y] = product;
-
-        // Add to other data structures
-        productById.put(product.id, product);
-        productsByName.computeIfAbsent(product.name.toLowerCase(), k -> new ArrayList<>()).add(product);
-        allProducts.add(product);
+        store.add(product);
+        if (areaTotals != null) {
+            areaTotals.add(product.x, product.y, 1, product.quantity);
+        }
+        if (quantityIndex != null) {
+            quantityIndex.add(product.quantity, product.id);
+        }
+        if (freeCells != null) {
+            freeCells.setFree(product.x, product.y, false);
+        }
+        if (nameTotals != null) {
+            nameTotals.add(product.nameCode, 1, product.quantity);
+        }
+        layoutVersion++;
+        fireCellChanged(product.x, product.y, product);
 
         return true;
     }
 
     public boolean removeProduct(int productId) {
-        Product product = productById.get(productId);
+        Product product = store.remove(productId);
         if (product == null) {
             return false;
         }
-
-        // Remove from grid
-        grid[product.x][product.y] = null;
-
-        // Remove from other data structures
-        productById.remove(productId);
-        productsByName.get(product.name.toLowerCase()).remove(product);
-        allProducts.remove(product);
+        if (areaTotals != null) {
+            areaTotals.add(product.x, product.y, -1, -product.quantity);
+        }
+        if (quantityIndex != null) {
+            quantityIndex.remove(product.quantity, product.id);
+        }
+        if (freeCells != null) {
+            freeCells.setFree(product.x, product.y, true);
+        }
+        if (nameTotals != null) {
+            nameTotals.add(product.nameCode, -1, -product.quantity);
+        }
+        layoutVersion++;
+        fireCellChanged(product.x, product.y, null);
 
         return true;
     }
 
+    // Removes many bins at once, e.g. the ones an order emptied, with a single layout version step.
+    // Returns how many of the ids were present.
+    public int removeProducts(int... productIds) {
+        int removed = 0;
+        for (int id : productIds) {
+            Product product = store.remove(id);
+            if (product != null) {
+                removed++;
+                if (areaTotals != null) {
+                    areaTotals.add(product.x, product.y, -1, -product.quantity);
+                }
+                if (quantityIndex != null) {
+                    quantityIndex.remove(product.quantity, product.id);
+                }
+                if (freeCells != null) {
+                    freeCells.setFree(product.x, product.y, true);
+                }
+                if (nameTotals != null) {
+                    nameTotals.add(product.nameCode, -1, -product.quantity);
+                }
+                fireCellChanged(product.x, product.y, null);
+            }
+        }
+        if (removed > 0) {
+            layoutVersion++;
+        }
+        return removed;
+    }
+
     public Product getProductAt(int x, int y) {
         if (!isValidCoordinate(x, y)) {
             return null;
         }
-        return grid[x][y];
+        return store.getAt(x, y);
     }
 
     public Product getProductById(int id) {
-        return productById.get(id);
+        return store.getById(id);
     }
 
     public List<Product> getProductsByName(String name) {
-        return productsByName.getOrDefault(name.toLowerCase(), new ArrayList<>());
+        return store.getByName(name);
     }
 
     public List<Product> getAllProducts() {
-        return new ArrayList<>(allProducts);
+        return store.getAll();
+    }
+
+    public int getProductCount() {
+        return store.size();
     }
 
+    // Bins in the rectangle, corners included, in no particular order. Parts of the rectangle off
+    // the floor are ignored.
     public List<Product> getProductsInArea(int startX, int startY, int endX, int endY) {
-        List<Product> products = new ArrayList<>();
-        for (int x = startX; x <= endX; x++) {
-            for (int y = startY; y <= endY; y++) {
-                if (isValidCoordinate(x, y) && grid[x][y] != null) {
-                    products.add(grid[x][y]);
-                }
+        return store.getInArea(startX, startY, endX, endY);
+    }
+
+    // Number of bins in the rectangle, corners included, in O(log w * log h)
+    public int countProductsInArea(int startX, int startY, int endX, int endY) {
+        return getAreaTotals().count(startX, startY, endX, endY);
+    }
+
+    // Units held by the bins in the rectangle, corners included, in O(log w * log h)
+    public long sumQuantityInArea(int startX, int startY, int endX, int endY) {
+        return getAreaTotals().sum(startX, startY, endX, endY);
+    }
+
+    private Fenwick2D getAreaTotals() {
+        if (areaTotals == null) {
+            areaTotals = Fenwick2D.of(store, GRID_WIDTH, GRID_HEIGHT);
+        }
+        return areaTotals;
+    }
+
+    // Changes the units a bin holds. Not a layout change, routes and cached distances stay valid.
+    public boolean setQuantity(int productId, int quantity) {
+        Product product = store.peekById(productId);
+        if (product == null) {
+            return false;
+        }
+        int oldQuantity = product.quantity;
+        store.setQuantity(productId, quantity);
+        if (areaTotals != null) {
+            areaTotals.add(product.x, product.y, 0, (long) quantity - oldQuantity);
+        }
+        if (quantityIndex != null) {
+            quantityIndex.remove(oldQuantity, productId);
+            quantityIndex.add(quantity, productId);
+        }
+        if (nameTotals != null) {
+            nameTotals.add(product.nameCode, 0, (long) quantity - oldQuantity);
+        }
+        return true;
+    }
+
+    // Bins of the named product, any case, without listing them
+    public int countBinsOf(String name) {
+        return getNameTotals().getBins(ProductNames.find(name));
+    }
+
+    // Units of the named product over all its bins, any case, without listing them
+    public long getTotalQuantity(String name) {
+        return getNameTotals().getUnits(ProductNames.find(name));
+    }
+
+    // A page of the bins whose name contains term, any case: the best matching names first (the
+    // whole name, then its start, a word start, anywhere; shorter names first within each), a
+    // name's bins by id. Stands in for LOWER(name) LIKE '%term%' without touching every bin.
+    public List<Product> searchProducts(String term, int offset, int limit) {
+        List<Product> page = new ArrayList<>();
+        NameTotals totals = getNameTotals();
+        for (int code : searchNames(term)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            int bins = totals.getBins(code);
+            if (offset >= bins) {
+                offset -= bins; // whole name before the page, skipped without listing its bins
+                continue;
             }
+            List<Product> named = store.getByName(ProductNames.keyOf(code));
+            named.sort(Comparator.comparingInt(product -> product.id));
+            int end = Math.min(named.size(), offset + limit - page.size());
+            page.addAll(named.subList(offset, end));
+            offset = 0;
+        }
+        return page;
+    }
+
+    // Bins whose name contains term, any case, for paging through searchProducts
+    public int countSearchResults(String term) {
+        int count = 0;
+        for (int code : searchNames(term)) {
+            count += getNameTotals().getBins(code);
         }
-        return products;
+        return count;
     }
 
+    private int[] searchNames(String term) {
+        if (term.equals(lastSearchTerm) && lastSearchVersion == layoutVersion) {
+            return lastSearchCodes;
+        }
+        if (nameSearch == null) {
+            nameSearch = new NameSearchIndex();
+        }
+        NameTotals totals = getNameTotals();
+        lastSearchCodes = nameSearch.search(term, code -> totals.getBins(code) > 0);
+        lastSearchTerm = term;
+        lastSearchVersion = layoutVersion;
+        return lastSearchCodes;
+    }
+
+    private NameTotals getNameTotals() {
+        if (nameTotals == null) {
+            nameTotals = NameTotals.of(store);
+        }
+        return nameTotals;
+    }
+
+    // Bins holding at most threshold units, fewest first, in O(log n + k)
     public List<Product> getLowStockProducts(int threshold) {
-        List<Product> lowStock = new ArrayList<>();
-        for (Product product : allProducts) {
-            if (product.quantity <= threshold) {
-                lowStock.add(product);
-            }
+        return getProductsByQuantity(Integer.MIN_VALUE, threshold);
+    }
+
+    // Bins holding between min and max units, both included, ordered by quantity and then id
+    public List<Product> getProductsByQuantity(int min, int max) {
+        List<Product> found = new ArrayList<>();
+        getQuantityIndex().forEachInRange(min, max, id -> found.add(store.getById(id)));
+        return found;
+    }
+
+    public int countLowStockProducts(int threshold) {
+        return getQuantityIndex().countAtMost(threshold);
+    }
+
+    private QuantityIndex getQuantityIndex() {
+        if (quantityIndex == null) {
+            quantityIndex = QuantityIndex.of(store);
         }
-        return lowStock;
+        return quantityIndex;
     }
 
     public boolean moveProduct(int productId, int newX, int newY) {
-        Product product = productById.get(productId);
-        if (product == null || !isValidCoordinate(newX, newY) || grid[newX][newY] != null) {
+        // The cell first, a peek at it may reuse the view the product is read from
+        if (!isStorable(newX, newY) || store.peekAt(newX, newY) != null) {
+            return false;
+        }
+        Product product = store.peekById(productId);
+        if (product == null) {
             return false;
         }
 
-        // Remove from old position
-        grid[product.x][product.y] = null;
-
-        // Update coordinates
-        product.x = newX;
-        product.y = newY;
-
-        // Add to new position
-        grid[newX][newY] = product;
+        int oldX = product.x;
+        int oldY = product.y;
+        store.move(productId, newX, newY);
+        if (areaTotals != null) {
+            areaTotals.add(oldX, oldY, -1, -product.quantity);
+            areaTotals.add(newX, newY, 1, product.quantity);
+        }
+        if (freeCells != null) {
+            freeCells.setFree(oldX, oldY, true);
+            freeCells.setFree(newX, newY, false);
+        }
+        layoutVersion++;
+        fireCellChanged(oldX, oldY, null);
+        fireCellChanged(newX, newY, store.getAt(newX, newY));
 
         return true;
     }
 
+    public FreeCellIndex getFreeCells() {
+        if (freeCells == null) {
+            freeCells = FreeCellIndex.of(this);
+        }
+        return freeCells;
+    }
+
     public boolean isValidCoordinate(int x, int y) {
         return x >= 0 && x < GRID_WIDTH && y >= 0 && y < GRID_HEIGHT;
     }
 
+    // Inside the floor and not a rack or wall of the floor plan
+    public boolean isStorable(int x, int y) {
+        return isValidCoordinate(x, y) && (floorPlan == null || !floorPlan.isWall(x, y));
+    }
+
+    public FloorPlan getFloorPlan() {
+        return floorPlan;
+    }
+
     public boolean isPositionOccupied(int x, int y) {
-        return isValidCoordinate(x, y) && grid[x][y] != null;
+        return isValidCoordinate(x, y) && store.peekAt(x, y) != null;
     }
 
     public int getGridWidth() {
@@ -135,40 +355,81 @@ public class ProductGrid {
         return GRID_HEIGHT;
     }
 
-    public void clear() {
-        grid = new Product[GRID_WIDTH][GRID_HEIGHT];
-        productById.clear();
-        productsByName.clear();
-        allProducts.clear();
+    public long getLayoutVersion() {
+        return layoutVersion;
     }
 
-    // Helper method to find nearest empty position
-    public Point findNearestEmptyPosition(int x, int y) {
-        if (!isValidCoordinate(x, y)) {
-            return null;
+    // Makes the grid hold exactly these products, touching only the bins that differ. A store
+    // reopened from disk is mostly up to date already, so a reload rewrites little of it, and
+    // listeners and the layout version only see the bins that really changed. Returns the products
+    // that could not be placed, on a rack, off the floor or on a cell another one already holds.
+    public List<Product> replaceAll(List<Product> products) {
+        IntIntMap wanted = new IntIntMap(products.size()); // id -> index in products
+        for (int i = 0; i < products.size(); i++) {
+            wanted.put(products.get(i).id, i);
+        }
+        // Gone and changed bins leave first, so a product can move into a cell another one vacates.
+        // A bin whose quantity alone changed stays where it is.
+        List<Integer> stale = new ArrayList<>();
+        List<Product> restocked = new ArrayList<>();
+        store.forEach(product -> {
+            int i = wanted.get(product.id, -1);
+            if (i == -1 || !sameBin(product, products.get(i))) {
+                stale.add(product.id);
+            } else if (product.quantity != products.get(i).quantity) {
+                restocked.add(products.get(i));
+            }
+        });
+        for (Product product : restocked) {
+            setQuantity(product.id, product.quantity);
         }
+        removeProducts(stale.stream().mapToInt(Integer::intValue).toArray());
+        List<Product> unplaced = new ArrayList<>();
+        for (Product product : products) {
+            if (store.peekById(product.id) == null && !addProduct(product)) {
+                unplaced.add(product);
+            }
+        }
+        return unplaced;
+    }
+
+    private static boolean sameBin(Product a, Product b) {
+        return a.x == b.x && a.y == b.y && a.name.equals(b.name);
+    }
 
-        // If current position is empty, return it
-        if (!isPositionOccupied(x, y)) {
-            return new Point(x, y);
+    public void clear() {
+        List<Product> removed = listeners.isEmpty() ? Collections.emptyList() : store.getAll();
+        store.clear();
+        areaTotals = null;
+        quantityIndex = null;
+        freeCells = null;
+        nameTotals = null;
+        layoutVersion++;
+        for (Product product : removed) {
+            fireCellChanged(product.x, product.y, null);
         }
+    }
 
-        // Search in expanding squares around the point
-        for (int radius = 1; radius < Math.max(GRID_WIDTH, GRID_HEIGHT); radius++) {
-            for (int dx = -radius; dx <= radius; dx++) {
-                for (int dy = -radius; dy <= radius; dy++) {
-                    // Only check the perimeter of the square
-                    if (Math.abs(dx) == radius || Math.abs(dy) == radius) {
-                        int newX = x + dx;
-                        int newY = y + dy;
-                        if (isValidCoordinate(newX, newY) && !isPositionOccupied(newX, newY)) {
-                            return new Point(newX, newY);
-                        }
-                    }
-                }
-            }
+    public void addLayoutListener(LayoutListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeLayoutListener(LayoutListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireCellChanged(int x, int y, Product occupant) {
+        for (LayoutListener listener : listeners) {
+            listener.cellChanged(x, y, occupant);
         }
+    }
 
-        return null; // No empty position found
+    // Helper method to find nearest empty position, by the larger of |dx| and |dy|
+    public Point findNearestEmptyPosition(int x, int y) {
+        if (!isValidCoordinate(x, y)) {
+            return null;
+        }
+        int cell = getFreeCells().nearest(x, y);
+        return cell == -1 ? null : new Point(cell % GRID_WIDTH, cell / GRID_WIDTH);
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Product names as dense int codes shared by the whole process. A name is lower-cased once, the
+// first time it is seen, and names that differ only in case get the same code, so "same product"
+// is an int compare wherever bins are matched by name.
+public final class ProductNames {
+    // Lower-case names and their codes
+    private static final NameDictionary KEYS = new NameDictionary();
+
+    // Spellings seen so far -> code of their lower-case form, so a known spelling skips toLowerCase
+    private static final Map<String, Integer> CODE_BY_SPELLING = new ConcurrentHashMap<>();
+
+    private ProductNames() {
+    }
+
+    // Code of the name, given one if it is new
+    public static int codeOf(String name) {
+        Integer code = CODE_BY_SPELLING.get(name);
+        if (code == null) {
+            code = KEYS.encode(name.toLowerCase());
+            CODE_BY_SPELLING.put(name, code);
+        }
+        return code;
+    }
+
+    // Code of a name some product has had, -1 otherwise. Query strings are not interned.
+    public static int find(String name) {
+        Integer code = CODE_BY_SPELLING.get(name);
+        return code != null ? code : KEYS.find(name.toLowerCase());
+    }
+
+    // The lower-case name of a code
+    public static String keyOf(int code) {
+        return KEYS.decode(code);
+    }
+
+    // Codes handed out so far, every code is below this
+    public static int count() {
+        return KEYS.size();
+    }
+}
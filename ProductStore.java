@@ -0,0 +1,46 @@
+import java.util.List;
+import java.util.function.Consumer;
+
+// Where ProductGrid keeps its bins. ProductGrid checks coordinates and tells listeners about
+// changes, a store only holds the records and finds them by id, by cell and by name.
+public interface ProductStore {
+    // Stores a product at its cell, the caller has checked that the cell is inside and free
+    void add(Product product);
+
+    // Removes a product and returns it as it was stored, or null if there is no such id
+    Product remove(int id);
+
+    // Moves a product to a cell the caller has checked is inside and free
+    void move(int id, int x, int y);
+
+    // Sets the units held by a stored product
+    void setQuantity(int id, int quantity);
+
+    // A Product the caller may keep. A store that does not hold Product objects builds a new one.
+    Product getById(int id);
+
+    Product getAt(int x, int y);
+
+    // Same as getById and getAt without building a Product: the one handed back may be a view the
+    // store reuses for its next peek, so read what is needed at once and copy it to keep it
+    Product peekById(int id);
+
+    Product peekAt(int x, int y);
+
+    // Products in the rectangle, corners included, in no particular order
+    List<Product> getInArea(int startX, int startY, int endX, int endY);
+
+    // Products whose name matches ignoring case, the list must not be modified. Like getAll, it
+    // holds Products the caller may keep.
+    List<Product> getByName(String name);
+
+    List<Product> getAll();
+
+    // Calls action for every product. The Product handed over may be a view that is reused for the
+    // next one, so copy it or look it up by id to keep it.
+    void forEach(Consumer<Product> action);
+
+    int size();
+
+    void clear();
+}
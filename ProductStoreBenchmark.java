@@ -0,0 +1,52 @@
+import java.util.*;
+
+// Adds and removals in random order on the heap and columnar stores, with few and with many bins
+// per name, since removals used to scan a name's whole bin list.
+//   java ProductStoreBenchmark [bins]
+// 100,000 bins on a 400 x 250 floor by default.
+public class ProductStoreBenchmark {
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 250;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : WIDTH * HEIGHT;
+        for (String kind : new String[] { "heap", "columnar" }) {
+            for (int names : new int[] { 10, 1000 }) {
+                for (int round = 0; round < ROUNDS; round++) {
+                    ProductStore store = kind.equals("heap") ? new HeapProductStore(WIDTH, HEIGHT)
+                            : new ColumnarProductStore(WIDTH, HEIGHT);
+                    Product[] products = new Product[n];
+                    for (int i = 0; i < n; i++) {
+                        products[i] = new Product(i, "Item" + (i % names), i % WIDTH, (i / WIDTH) % HEIGHT, 5);
+                    }
+                    int[] order = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        order[i] = i;
+                    }
+                    Random random = new Random(round);
+                    for (int i = n - 1; i > 0; i--) {
+                        int j = random.nextInt(i + 1);
+                        int swap = order[i];
+                        order[i] = order[j];
+                        order[j] = swap;
+                    }
+
+                    long t0 = System.nanoTime();
+                    for (Product p : products) {
+                        store.add(p);
+                    }
+                    long t1 = System.nanoTime();
+                    for (int id : order) {
+                        store.remove(id);
+                    }
+                    long t2 = System.nanoTime();
+                    if (round == ROUNDS - 1) {
+                        System.out.printf("%s store, %d names: %d adds %.1f ms, %d removes %.1f ms%n", kind, names, n,
+                                (t1 - t0) / 1e6, n, (t2 - t1) / 1e6);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.awt.Point;
+import java.util.*;
+
+// Randomized check of PutawayService.chooseCell against a brute-force scan of every free cell,
+// on floors several blocks wide so bins sit on both sides of block borders.
+//   java PutawayCheck [rounds]
+// Floor size as for the app, -Dwarehouse.width / -Dwarehouse.height, 256 x 192 by default.
+// Exits with status 1 when a chosen cell costs more than the best one.
+public class PutawayCheck {
+    public static void main(String[] args) {
+        setDefault("warehouse.width", "256");
+        setDefault("warehouse.height", "192");
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        Random random = new Random(23);
+        ProductGrid grid = new ProductGrid();
+        int width = grid.getGridWidth();
+        int height = grid.getGridHeight();
+        String[] names = { "Widget", "Bolt", "Gear" };
+        int id = 0;
+        int failures = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            grid.clear();
+            // Sparse rounds leave a few bins per name, dense ones fill most of the floor
+            int bins = round % 4 == 0 ? random.nextInt(width * height * 9 / 10) : 1 + random.nextInt(6);
+            for (int i = 0; i < bins; i++) {
+                grid.addProduct(new Product(id++, names[random.nextInt(names.length)],
+                        random.nextInt(width), random.nextInt(height), 1));
+            }
+            int entranceX = random.nextInt(width);
+            int entranceY = random.nextInt(height);
+            PutawayService putaway = new PutawayService(grid, entranceX, entranceY);
+            for (String name : names) {
+                long[] distance = distanceTo(grid.getProductsByName(name), width, height);
+                Point chosen = putaway.chooseCell(name);
+                long best = Long.MAX_VALUE;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (grid.isStorable(x, y) && !grid.isPositionOccupied(x, y)) {
+                            best = Math.min(best, cost(x, y, entranceX, entranceY, distance, width));
+                        }
+                    }
+                }
+                boolean ok = chosen == null ? best == Long.MAX_VALUE
+                        : grid.isStorable(chosen.x, chosen.y) && !grid.isPositionOccupied(chosen.x, chosen.y)
+                                && cost(chosen.x, chosen.y, entranceX, entranceY, distance, width) == best;
+                if (!ok) {
+                    failures++;
+                    System.out.printf("round %d, %s from (%d, %d): chose %s, best cost %d%n",
+                            round, name, entranceX, entranceY, chosen, best);
+                }
+            }
+        }
+        System.out.printf("%d rounds on %d x %d, %d failures%n", rounds, width, height, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static long cost(int x, int y, int entranceX, int entranceY, long[] distance, int width) {
+        long cost = Math.abs(x - entranceX) + Math.abs(y - entranceY);
+        long sibling = distance[y * width + x];
+        return sibling == Long.MAX_VALUE ? cost : cost + PutawayService.SKU_WEIGHT * sibling;
+    }
+
+    // |dx| + |dy| from every cell to the nearest bin, by a forward and a backward pass
+    private static long[] distanceTo(List<Product> bins, int width, int height) {
+        long[] distance = new long[width * height];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        if (bins.isEmpty()) {
+            return distance;
+        }
+        long far = (long) width + height;
+        Arrays.fill(distance, far);
+        for (Product bin : bins) {
+            distance[bin.y * width + bin.x] = 0;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (x > 0) {
+                    distance[i] = Math.min(distance[i], distance[i - 1] + 1);
+                }
+                if (y > 0) {
+                    distance[i] = Math.min(distance[i], distance[i - width] + 1);
+                }
+            }
+        }
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int i = y * width + x;
+                if (x < width - 1) {
+                    distance[i] = Math.min(distance[i], distance[i + 1] + 1);
+                }
+                if (y < height - 1) {
+                    distance[i] = Math.min(distance[i], distance[i + width] + 1);
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
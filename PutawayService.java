@@ -0,0 +1,207 @@
+import java.awt.Point;
+import java.util.*;
+
+// Picks the cell for incoming stock: the free cell with the lowest
+//   distance to the entrance + SKU_WEIGHT * distance to the nearest bin of the same product
+// so new stock goes near the dock and next to where that product already is. Distances are
+// |dx| + |dy|, which keeps a putaway to microseconds but ignores racks on a floor plan.
+// The floor is searched block by block from the free-cell index: full blocks are skipped, the
+// rest are visited cheapest lower bound first, and the search stops once no remaining block can
+// beat the best cell found. The product's bins are bucketed by the same blocks, so the nearest
+// one to a cell or block is found in the surrounding rings of blocks, not among all of them.
+public class PutawayService {
+    // How much more a step away from the product's other bins costs than a step from the dock
+    public static final int SKU_WEIGHT = 2;
+
+    // Bucketed bins of the products put away lately, by name code. An entry is valid for
+    // the layout version it was built at, and is carried forward by this service's own putaways.
+    private static final int CACHED_NAMES = 64;
+    private final Map<Integer, Siblings> siblingCache = new LinkedHashMap<Integer, Siblings>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Siblings> eldest) {
+            return size() > CACHED_NAMES;
+        }
+    };
+
+    private final ProductGrid inventory;
+    private final int entranceX;
+    private final int entranceY;
+
+    public PutawayService(ProductGrid inventory, int entranceX, int entranceY) {
+        this.inventory = inventory;
+        this.entranceX = entranceX;
+        this.entranceY = entranceY;
+    }
+
+    // Cheapest free cell for a new bin of the named product, or null when the floor is full
+    public Point chooseCell(String productName) {
+        FreeCellIndex free = inventory.getFreeCells();
+        if (free.getFreeCount() == 0) {
+            return null;
+        }
+        Siblings siblings = siblingsOf(productName, free);
+
+        // Blocks with a free cell, ordered by a lower bound on the cost of any cell inside
+        int columns = free.getBlockColumns();
+        int rows = free.getBlockRows();
+        long[] order = new long[columns * rows];
+        int blocks = 0;
+        for (int by = 0; by < rows; by++) {
+            for (int bx = 0; bx < columns; bx++) {
+                if (free.getBlockFree(bx, by) > 0) {
+                    long bound = lowerBound(free, bx, by, siblings);
+                    order[blocks++] = bound << 32 | (by * columns + bx);
+                }
+            }
+        }
+        Arrays.sort(order, 0, blocks);
+
+        long bestCost = Long.MAX_VALUE;
+        int bestX = -1;
+        int bestY = -1;
+        for (int i = 0; i < blocks && (order[i] >>> 32) < bestCost; i++) {
+            int block = (int) order[i];
+            int bx = block % columns;
+            int by = block / columns;
+            int endY = Math.min((by + 1) << FreeCellIndex.BLOCK_SHIFT, free.getHeight());
+            for (int y = by << FreeCellIndex.BLOCK_SHIFT; y < endY; y++) {
+                for (long bits = free.word(y, bx); bits != 0; bits &= bits - 1) {
+                    int x = (bx << 6) + Long.numberOfTrailingZeros(bits);
+                    long cost = cost(x, y, siblings);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestX = x;
+                        bestY = y;
+                    }
+                }
+            }
+        }
+        return new Point(bestX, bestY);
+    }
+
+    // Chooses a cell and stores the product there, returns false when the floor is full
+    public boolean putaway(Product product) {
+        Point cell = chooseCell(product.name);
+        if (cell == null) {
+            return false;
+        }
+        product.x = cell.x;
+        product.y = cell.y;
+        long before = inventory.getLayoutVersion();
+        if (!inventory.addProduct(product)) {
+            return false;
+        }
+        // Only this bin changed, so every entry that was current stays current
+        for (Map.Entry<Integer, Siblings> entry : siblingCache.entrySet()) {
+            Siblings siblings = entry.getValue();
+            if (siblings.version == before) {
+                siblings.version = inventory.getLayoutVersion();
+                if (entry.getKey() == product.nameCode) {
+                    siblings.add(product.x, product.y);
+                }
+            }
+        }
+        return true;
+    }
+
+    private Siblings siblingsOf(String productName, FreeCellIndex free) {
+        int key = ProductNames.find(productName);
+        if (key == -1) {
+            return new Siblings(free); // a product never seen before has no bins to stay near
+        }
+        Siblings siblings = siblingCache.get(key);
+        if (siblings == null || siblings.version != inventory.getLayoutVersion()) {
+            siblings = new Siblings(free);
+            for (Product product : inventory.getProductsByName(productName)) {
+                siblings.add(product.x, product.y);
+            }
+            siblings.version = inventory.getLayoutVersion();
+            siblingCache.put(key, siblings);
+        }
+        return siblings;
+    }
+
+    private long cost(int x, int y, Siblings siblings) {
+        long cost = Math.abs(x - entranceX) + Math.abs(y - entranceY);
+        if (siblings.count > 0) {
+            cost += (long) SKU_WEIGHT * siblings.distanceTo(x, y, x, y);
+        }
+        return cost;
+    }
+
+    // Cost no cell of the block can go below: the distances to the block's rectangle
+    private long lowerBound(FreeCellIndex free, int bx, int by, Siblings siblings) {
+        int startX = bx << FreeCellIndex.BLOCK_SHIFT;
+        int startY = by << FreeCellIndex.BLOCK_SHIFT;
+        int endX = Math.min(startX + FreeCellIndex.BLOCK_SIZE, free.getWidth()) - 1;
+        int endY = Math.min(startY + FreeCellIndex.BLOCK_SIZE, free.getHeight()) - 1;
+        long bound = distanceToRect(entranceX, entranceY, startX, startY, endX, endY);
+        if (siblings.count > 0) {
+            bound += (long) SKU_WEIGHT * siblings.distanceTo(startX, startY, endX, endY);
+        }
+        return bound;
+    }
+
+    // The product's bins bucketed by free-cell index block, as linked lists through next
+    private static class Siblings {
+        int count;
+        int[] xs = new int[16];
+        int[] ys = new int[16];
+        int[] next = new int[16];
+        final int[] head; // first bin of each block, -1 when none
+        final int columns;
+        final int rows;
+        long version;
+
+        Siblings(FreeCellIndex free) {
+            columns = free.getBlockColumns();
+            rows = free.getBlockRows();
+            head = new int[columns * rows];
+            Arrays.fill(head, -1);
+        }
+
+        void add(int x, int y) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                next = Arrays.copyOf(next, count * 2);
+            }
+            int block = (y >> FreeCellIndex.BLOCK_SHIFT) * columns + (x >> FreeCellIndex.BLOCK_SHIFT);
+            xs[count] = x;
+            ys[count] = y;
+            next[count] = head[block];
+            head[block] = count++;
+        }
+
+        // Distance from a rectangle within one block to the nearest bin. Block rings are taken
+        // outwards from the rectangle's block. A bin in ring r can be as close as
+        // (r - 1) * BLOCK_SIZE + 1, just across the border, so rings 0 and 1 are always read.
+        int distanceTo(int startX, int startY, int endX, int endY) {
+            int cx = startX >> FreeCellIndex.BLOCK_SHIFT;
+            int cy = startY >> FreeCellIndex.BLOCK_SHIFT;
+            int best = Integer.MAX_VALUE;
+            int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+            for (int ring = 0; ring <= maxRing && (long) best > (long) (ring - 1) * FreeCellIndex.BLOCK_SIZE; ring++) {
+                for (int by = Math.max(cy - ring, 0); by <= Math.min(cy + ring, rows - 1); by++) {
+                    // Whole rows of blocks at the top and bottom of the ring, the two sides elsewhere
+                    int step = by == cy - ring || by == cy + ring ? 1 : 2 * ring;
+                    for (int bx = cx - ring; bx <= cx + ring; bx += Math.max(step, 1)) {
+                        if (bx < 0 || bx >= columns) {
+                            continue;
+                        }
+                        for (int i = head[by * columns + bx]; i != -1; i = next[i]) {
+                            best = Math.min(best, distanceToRect(xs[i], ys[i], startX, startY, endX, endY));
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    private static int distanceToRect(int x, int y, int startX, int startY, int endX, int endY) {
+        int dx = x < startX ? startX - x : x > endX ? x - endX : 0;
+        int dy = y < startY ? startY - y : y > endY ? y - endY : 0;
+        return dx + dy;
+    }
+}
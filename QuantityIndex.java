@@ -0,0 +1,210 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Product ids ordered by (quantity, id), kept as a two-level B+-tree of primitive longs: sorted
+// leaves of up to 256 packed keys, found by a binary search over each leaf's first key. Adding or
+// removing one key costs O(log n) plus a shift within its leaf. A leaf that fills up splits, and
+// one that empties is dropped, which shifts the table of leaves, O(n / 256), at most once every
+// 128 adds to a leaf. A range of k keys is read in O(log n + k) in ascending order, so threshold
+// queries come back already sorted, and counting the keys below a threshold takes O(log n) from
+// running totals of the leaf sizes.
+public class QuantityIndex {
+    private static final int LEAF_SIZE = 256;
+
+    private long[][] leaves = { new long[LEAF_SIZE] };
+    private int[] leafSizes = new int[1];
+    private long[] leafFirst = new long[1]; // first key of each leaf, leaf 0 starts at -infinity
+    private int[] leafTotals = new int[2]; // Fenwick tree over leafSizes, 1-based
+    private int leafCount = 1;
+    private int size;
+
+    // Quantity in the high half so keys order by quantity first, then by id
+    private static long key(int quantity, int id) {
+        return ((long) quantity << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // Builds the index for every product of a store with one sort
+    public static QuantityIndex of(ProductStore store) {
+        long[] keys = new long[store.size()];
+        int[] count = new int[1];
+        store.forEach(product -> keys[count[0]++] = key(product.quantity, product.id));
+        Arrays.sort(keys);
+        QuantityIndex index = new QuantityIndex();
+        index.load(keys);
+        return index;
+    }
+
+    // Fills leaves three quarters full, leaving room for inserts before the first splits
+    private void load(long[] keys) {
+        int perLeaf = LEAF_SIZE * 3 / 4;
+        leafCount = Math.max(1, (keys.length + perLeaf - 1) / perLeaf);
+        leaves = new long[leafCount][];
+        leafSizes = new int[leafCount];
+        leafFirst = new long[leafCount];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            int from = leaf * perLeaf;
+            int to = Math.min(keys.length, from + perLeaf);
+            leaves[leaf] = new long[LEAF_SIZE];
+            if (from < to) {
+                System.arraycopy(keys, from, leaves[leaf], 0, to - from);
+                leafSizes[leaf] = to - from;
+                leafFirst[leaf] = keys[from];
+            }
+        }
+        size = keys.length;
+        rebuildTotals();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int quantity, int id) {
+        long key = key(quantity, id);
+        int leaf = leafFor(key);
+        if (leafSizes[leaf] == LEAF_SIZE) {
+            split(leaf);
+            if (key >= leafFirst[leaf + 1]) {
+                leaf++;
+            }
+        }
+        long[] keys = leaves[leaf];
+        int at = Arrays.binarySearch(keys, 0, leafSizes[leaf], key);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        System.arraycopy(keys, at, keys, at + 1, leafSizes[leaf] - at);
+        keys[at] = key;
+        leafSizes[leaf]++;
+        addToTotals(leaf, 1);
+        if (at == 0) {
+            leafFirst[leaf] = key;
+        }
+        size++;
+    }
+
+    public void remove(int quantity, int id) {
+        long key = key(quantity, id);
+        int leaf = leafFor(key);
+        long[] keys = leaves[leaf];
+        int at = Arrays.binarySearch(keys, 0, leafSizes[leaf], key);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(keys, at + 1, keys, at, leafSizes[leaf] - at - 1);
+        leafSizes[leaf]--;
+        addToTotals(leaf, -1);
+        size--;
+        if (leafSizes[leaf] == 0 && leafCount > 1) {
+            dropLeaf(leaf);
+        } else if (at == 0 && leafSizes[leaf] > 0) {
+            leafFirst[leaf] = keys[0];
+        }
+    }
+
+    public void clear() {
+        load(new long[0]);
+    }
+
+    // Calls action with the id of every product whose quantity is in [min, max], in ascending
+    // (quantity, id) order
+    public void forEachInRange(int min, int max, IntConsumer action) {
+        long from = key(min, 0) & ~0xFFFFFFFFL;
+        long to = key(max, 0) | 0xFFFFFFFFL;
+        int leaf = leafFor(from);
+        int at = Arrays.binarySearch(leaves[leaf], 0, leafSizes[leaf], from);
+        at = at >= 0 ? at : -at - 1;
+        for (; leaf < leafCount; leaf++, at = 0) {
+            long[] keys = leaves[leaf];
+            for (; at < leafSizes[leaf]; at++) {
+                if (keys[at] > to) {
+                    return;
+                }
+                action.accept((int) keys[at]);
+            }
+        }
+    }
+
+    // Number of products holding at most threshold units
+    public int countAtMost(int threshold) {
+        long to = key(threshold, 0) | 0xFFFFFFFFL;
+        int leaf = leafFor(to);
+        int count = 0;
+        for (int i = leaf; i > 0; i -= i & -i) {
+            count += leafTotals[i]; // keys in the leaves before this one
+        }
+        int at = Arrays.binarySearch(leaves[leaf], 0, leafSizes[leaf], to);
+        return count + (at >= 0 ? at + 1 : -at - 1);
+    }
+
+    // Last leaf whose first key is at most key, the first leaf for anything smaller
+    private int leafFor(long key) {
+        int low = 1;
+        int high = leafCount - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (leafFirst[mid] <= key) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Moves the upper half of a full leaf into a new leaf right after it
+    private void split(int leaf) {
+        if (leafCount == leaves.length) {
+            int capacity = leafCount * 2;
+            leaves = Arrays.copyOf(leaves, capacity);
+            leafSizes = Arrays.copyOf(leafSizes, capacity);
+            leafFirst = Arrays.copyOf(leafFirst, capacity);
+        }
+        int next = leaf + 1;
+        System.arraycopy(leaves, next, leaves, next + 1, leafCount - next);
+        System.arraycopy(leafSizes, next, leafSizes, next + 1, leafCount - next);
+        System.arraycopy(leafFirst, next, leafFirst, next + 1, leafCount - next);
+        leafCount++;
+
+        int half = LEAF_SIZE / 2;
+        leaves[next] = new long[LEAF_SIZE];
+        System.arraycopy(leaves[leaf], half, leaves[next], 0, LEAF_SIZE - half);
+        leafSizes[leaf] = half;
+        leafSizes[next] = LEAF_SIZE - half;
+        leafFirst[next] = leaves[next][0];
+        rebuildTotals();
+    }
+
+    private void dropLeaf(int leaf) {
+        System.arraycopy(leaves, leaf + 1, leaves, leaf, leafCount - leaf - 1);
+        System.arraycopy(leafSizes, leaf + 1, leafSizes, leaf, leafCount - leaf - 1);
+        System.arraycopy(leafFirst, leaf + 1, leafFirst, leaf, leafCount - leaf - 1);
+        leafCount--;
+        leaves[leafCount] = null;
+        rebuildTotals();
+    }
+
+    // Running totals afresh in O(leaves), after leaves have moved
+    private void rebuildTotals() {
+        if (leafTotals.length < leaves.length + 1) {
+            leafTotals = new int[leaves.length + 1];
+        }
+        Arrays.fill(leafTotals, 0);
+        for (int i = 1; i <= leafCount; i++) {
+            leafTotals[i] += leafSizes[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= leafCount) {
+                leafTotals[parent] += leafTotals[i];
+            }
+        }
+    }
+
+    private void addToTotals(int leaf, int delta) {
+        for (int i = leaf + 1; i <= leafCount; i += i & -i) {
+            leafTotals[i] += delta;
+        }
+    }
+}
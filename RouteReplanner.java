@@ -0,0 +1,289 @@
+import java.awt.Point;
+import java.util.*;
+
+// Keeps the route of one picker up to date while bins are added, moved or removed (D* Lite).
+// The search runs backwards from every target bin towards the picker, so when a cell flips only
+// the cells whose distance actually changes are expanded again, and the picker can keep walking
+// without the search starting over. Nothing is built until a route is asked for, or, when the
+// replanner follows a route found elsewhere, until a layout change means it needs repair.
+public class RouteReplanner implements LayoutListener {
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private final ProductGrid inventory;
+    private final String targetName;
+    private int targetCode; // -1 until some product has had the name
+    private GridGraph grid; // bins as of the last repair, null until the search is built
+    private final BitSet targets = new BitSet(); // cells holding a target bin
+
+    // Distance to the nearest target, g is the settled value and rhs the one-step lookahead
+    private int[] g;
+    private int[] rhs;
+    private IndexedMinHeap queue;
+    private final int[] around = new int[4];
+    private final int[] scan = new int[4];
+
+    private int startX;
+    private int startY;
+    private int start;
+    private int keyModifier; // total heuristic drift since the search began, keeps old keys valid
+
+    // The route this replanner was handed and its length, kept until the layout or picker moves
+    private List<Point> seedRoute;
+    private int seedDistance;
+
+    // Latest occupant of every cell changed since the last repair, null when it was freed
+    private final Map<Integer, Product> pending = new HashMap<>();
+    private boolean stale;
+
+    private long lastExpanded;
+    private long totalExpanded;
+    private boolean lastFull; // the last repair was the first plan, a whole search
+
+    public RouteReplanner(ProductGrid inventory, int startX, int startY, String targetName) {
+        this(inventory, startX, startY, targetName, null, -1);
+    }
+
+    // Follows a route already found to the nearest bin named targetName, e.g. the one on screen,
+    // so nothing is searched while the layout stays as it is
+    public RouteReplanner(ProductGrid inventory, int startX, int startY, String targetName, List<Point> route,
+            int distance) {
+        this.inventory = inventory;
+        this.startX = startX;
+        this.startY = startY;
+        this.targetName = targetName;
+        this.targetCode = ProductNames.find(targetName);
+        this.seedRoute = route;
+        this.seedDistance = distance;
+    }
+
+    // Full search over the layout as it is now, which already holds every change so far
+    private void build() {
+        List<Product> products = inventory.getAllProducts();
+        grid = GridGraph.fromProducts(products, inventory.getGridWidth(), inventory.getGridHeight(),
+                inventory.getFloorPlan());
+        int cellCount = grid.getCellCount();
+        g = new int[cellCount];
+        rhs = new int[cellCount];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        queue = new IndexedMinHeap(cellCount);
+        start = grid.cellOf(startX, startY);
+
+        for (Product p : products) {
+            if (grid.contains(p.x, p.y) && targetCode != -1 && p.nameCode == targetCode) {
+                int cell = grid.cellOf(p.x, p.y);
+                targets.set(cell);
+                rhs[cell] = 0;
+                queue.insert(cell, key(cell));
+            }
+        }
+        pending.clear();
+        seedRoute = null;
+        lastFull = true;
+        computeShortestPath();
+    }
+
+    @Override
+    public synchronized void cellChanged(int x, int y, Product occupant) {
+        if (grid == null) {
+            stale = true; // the build will read the layout, the change included
+        } else if (grid.contains(x, y)) {
+            pending.put(grid.cellOf(x, y), occupant);
+            stale = true;
+        }
+    }
+
+    // The picker has walked on to (x, y)
+    public synchronized void moveTo(int x, int y) {
+        if (grid == null) {
+            startX = x;
+            startY = y;
+            seedRoute = null;
+            return;
+        }
+        int previous = start;
+        start = grid.cellOf(x, y);
+        keyModifier += GridGraph.manhattan(grid.xOf(previous), grid.yOf(previous), x, y);
+        // The cell the picker started from is only walkable while they stand on it
+        updateAround(previous);
+        updateAround(start);
+        stale = true;
+    }
+
+    // Route from the picker to the nearest target bin, repaired for any changes since the last call.
+    // Empty when no target can be reached.
+    public synchronized List<Point> getRoute() {
+        if (isSeedCurrent()) {
+            return new ArrayList<>(seedRoute);
+        }
+        repair();
+        PackedPath route = new PackedPath();
+        if (g[start] >= INFINITY) {
+            return route;
+        }
+        int cell = start;
+        route.append(grid.xOf(cell), grid.yOf(cell));
+        while (!targets.get(cell)) {
+            int best = -1;
+            int bestCost = INFINITY;
+            int count = grid.neighbours(cell, around);
+            for (int k = 0; k < count; k++) {
+                int next = around[k];
+                int cost = cost(cell, next) + g[next];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = next;
+                }
+            }
+            if (best == -1 || route.size() > grid.getCellCount()) {
+                return new PackedPath();
+            }
+            cell = best;
+            route.append(grid.xOf(cell), grid.yOf(cell));
+        }
+        return route;
+    }
+
+    // Walking distance from the picker to the nearest target, -1 if none is reachable
+    public synchronized int getDistance() {
+        if (isSeedCurrent()) {
+            return seedDistance;
+        }
+        repair();
+        return g[start] >= INFINITY ? -1 : g[start];
+    }
+
+    private boolean isSeedCurrent() {
+        return grid == null && seedRoute != null && !stale;
+    }
+
+    // Cells expanded by the most recent repair, the first plan counts as one, 0 while following the
+    // route it was handed
+    public synchronized long getLastExpanded() {
+        return lastExpanded;
+    }
+
+    // True when the last repair had to plan from scratch, which a replanner following a handed
+    // route does on the first layout change, so getLastExpanded counts a whole search
+    public synchronized boolean isLastRepairFull() {
+        return lastFull;
+    }
+
+    public synchronized long getTotalExpanded() {
+        return totalExpanded;
+    }
+
+    // Applies the pending cell changes and brings the distances back to a consistent state
+    private void repair() {
+        if (targetCode == -1) {
+            targetCode = ProductNames.find(targetName); // the first bin of the name may have arrived
+        }
+        if (grid == null) {
+            stale = false;
+            build();
+            return;
+        }
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        lastFull = false;
+        for (Map.Entry<Integer, Product> change : pending.entrySet()) {
+            int cell = change.getKey();
+            Product occupant = change.getValue();
+            boolean blocked = occupant != null;
+            boolean target = blocked && targetCode != -1 && occupant.nameCode == targetCode;
+            if (blocked == grid.isBlocked(cell) && target == targets.get(cell)) {
+                continue; // e.g. a bin that was cleared and put back while reloading
+            }
+            grid.setBlocked(grid.xOf(cell), grid.yOf(cell), blocked);
+            targets.set(cell, target);
+            updateAround(cell);
+        }
+        pending.clear();
+        computeShortestPath();
+    }
+
+    private void updateAround(int cell) {
+        updateVertex(cell);
+        int count = grid.neighbours(cell, around);
+        for (int k = 0; k < count; k++) {
+            updateVertex(around[k]);
+        }
+    }
+
+    private void computeShortestPath() {
+        long expanded = 0;
+        while (!queue.isEmpty() && (queue.peekMinKey() < key(start) || rhs[start] != g[start])) {
+            int u = queue.peekMin();
+            long oldKey = queue.peekMinKey();
+            long newKey = key(u);
+            if (oldKey < newKey) {
+                queue.update(u, newKey);
+                continue;
+            }
+            expanded++;
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                queue.remove(u);
+            } else {
+                g[u] = INFINITY;
+                updateVertex(u);
+            }
+            int count = grid.neighbours(u, around);
+            for (int k = 0; k < count; k++) {
+                updateVertex(around[k]);
+            }
+        }
+        lastExpanded = expanded;
+        totalExpanded += expanded;
+    }
+
+    private void updateVertex(int cell) {
+        if (targets.get(cell)) {
+            rhs[cell] = 0;
+        } else {
+            int best = INFINITY;
+            int count = grid.neighbours(cell, scan);
+            for (int k = 0; k < count; k++) {
+                int next = scan[k];
+                int cost = cost(cell, next);
+                if (g[next] < INFINITY && cost < INFINITY) {
+                    best = Math.min(best, g[next] + cost);
+                }
+            }
+            rhs[cell] = best;
+        }
+        if (g[cell] != rhs[cell]) {
+            if (queue.contains(cell)) {
+                queue.update(cell, key(cell));
+            } else {
+                queue.insert(cell, key(cell));
+            }
+        } else if (queue.contains(cell)) {
+            queue.remove(cell);
+        }
+    }
+
+    // Ordered by the estimated total through the cell, ties by the cell's own distance
+    private long key(int cell) {
+        int best = Math.min(g[cell], rhs[cell]);
+        int estimate = GridGraph.manhattan(grid.xOf(start), grid.yOf(start), grid.xOf(cell), grid.yOf(cell));
+        return ((long) (best + estimate + keyModifier) << 32) | best;
+    }
+
+    // The floor plan's cost of the step, unless it passes through a bin or goes against a one-way
+    // aisle. Bins are only entered as the target at the end of the route or left from where the
+    // picker stands.
+    private int cost(int from, int to) {
+        if (!isWalkable(from) || !isWalkable(to)) {
+            return INFINITY;
+        }
+        int cost = grid.stepCost(from, to);
+        return cost < 0 ? INFINITY : cost;
+    }
+
+    private boolean isWalkable(int cell) {
+        return cell == start || targets.get(cell) || !grid.isBlocked(cell);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.*;
+
+public class SearchContext {
+    // One context per thread, so repeated searches reuse the same arrays
+    private static final ThreadLocal<SearchContext> LOCAL = ThreadLocal.withInitial(SearchContext::new);
+
+    private int[] dist = new int[0];
+    private int[] prev = new int[0];
+
+    // A cell's entries are only valid when its stamp equals the current generation,
+    // so starting a new search never has to clear the arrays
+    private int[] stamp = new int[0];
+    private int[] visitedStamp = new int[0];
+    private int generation;
+
+    private final IndexedMinHeap heap = new IndexedMinHeap(16);
+    private final int[] neighbours = new int[4];
+    private final int[] weights = new int[4];
+    private int[] chain = new int[64];
+
+    // Statistics of the current query, kept across reset() since some engines reset part way
+    private long expanded;
+    private boolean captureExplored;
+    private int[] explored = new int[0];
+    private int exploredCount;
+
+    public static SearchContext forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    // Prepares the context for a new search over cellCount cells
+    public void reset(int cellCount) {
+        if (dist.length < cellCount) {
+            dist = new int[cellCount];
+            prev = new int[cellCount];
+            stamp = new int[cellCount];
+            visitedStamp = new int[cellCount];
+            generation = 0;
+        }
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(visitedStamp, 0);
+            generation = 0;
+        }
+        generation++;
+        heap.clear();
+        heap.ensureCapacity(cellCount);
+    }
+
+    public int getDistance(int cell) {
+        return stamp[cell] == generation ? dist[cell] : Integer.MAX_VALUE;
+    }
+
+    public int getPrevious(int cell) {
+        return stamp[cell] == generation ? prev[cell] : -1;
+    }
+
+    public void setDistance(int cell, int distance, int previous) {
+        stamp[cell] = generation;
+        dist[cell] = distance;
+        prev[cell] = previous;
+    }
+
+    public boolean isVisited(int cell) {
+        return visitedStamp[cell] == generation;
+    }
+
+    public void markVisited(int cell) {
+        visitedStamp[cell] = generation;
+        expanded++;
+        if (captureExplored) {
+            if (exploredCount == explored.length) {
+                explored = Arrays.copyOf(explored, Math.max(64, exploredCount * 2));
+            }
+            explored[exploredCount++] = cell;
+        }
+    }
+
+    // Records every expanded cell for the next queries on this thread, e.g. to draw them
+    public void setCaptureExplored(boolean captureExplored) {
+        this.captureExplored = captureExplored;
+    }
+
+    public boolean isCapturingExplored() {
+        return captureExplored;
+    }
+
+    // Starts counting for a new query
+    public void startStats() {
+        expanded = 0;
+        exploredCount = 0;
+        heap.resetCounters();
+    }
+
+    // Copies what the query has done since startStats() into stats
+    public void copyStatsTo(SearchStats stats) {
+        stats.expanded = expanded;
+        stats.pushes = heap.getPushes();
+        stats.pops = heap.getPops();
+        stats.peakOpen = heap.getPeakSize();
+        stats.explored = Arrays.copyOf(explored, exploredCount);
+    }
+
+    public IndexedMinHeap getHeap() {
+        return heap;
+    }
+
+    public int[] getNeighbourBuffer() {
+        return neighbours;
+    }
+
+    public int[] getWeightBuffer() {
+        return weights;
+    }
+
+    // Walks the predecessor chain back from a cell and returns the route in walking order
+    public PackedPath buildPath(GridGraph grid, int targetCell) {
+        int length = 0;
+        for (int cell = targetCell; cell != -1; cell = getPrevious(cell)) {
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, length * 2);
+            }
+            chain[length++] = cell;
+        }
+        PackedPath path = new PackedPath();
+        for (int i = length - 1; i >= 0; i--) {
+            path.append(grid.xOf(chain[i]), grid.yOf(chain[i]));
+        }
+        return path;
+    }
+}
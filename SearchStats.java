@@ -0,0 +1,15 @@
+// Where the time of one path query went, for tuning heuristics against real layouts
+public class SearchStats {
+    public long buildNanos; // building the graph or distance tables, 0 when a cached one was reused
+    public long searchNanos;
+    public long expanded; // cells or entrances taken off the open set and expanded
+    public long pushes;
+    public long pops;
+    public int peakOpen; // largest size the open set reached
+    public boolean straightRoute; // answered by an open L to the nearest bin, no engine ran
+    public int[] explored = new int[0]; // expanded cells in order, only when capture was requested
+
+    public long getTotalNanos() {
+        return buildNanos + searchNanos;
+    }
+}
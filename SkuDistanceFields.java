@@ -0,0 +1,316 @@
+import java.util.*;
+
+// Walking distance from every cell to the nearest bin of a product name, one field per name.
+// "Nearest Laptop from here" becomes an array read, and the route falls out of walking downhill.
+// Fields follow the inventory, a bin added, moved or removed only repairs the cells whose
+// distance runs through it.
+public class SkuDistanceFields implements LayoutListener {
+    // Fields kept at once, the least recently used name is dropped first
+    private static final int MAX_FIELDS = 32;
+    // Beyond this many queued changes a rebuild is cheaper than replaying them, e.g. a reload
+    private static final int MAX_PENDING = 256;
+
+    private final ProductGrid inventory;
+    private final int width;
+    private final int height;
+
+    // By ProductNames code
+    private final Map<Integer, Field> fields = new LinkedHashMap<Integer, Field>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Field> eldest) {
+            return size() > MAX_FIELDS;
+        }
+    };
+
+    private IndexedMinHeap queue;
+    private final int[] neighbours = new int[4];
+    private long rebuilds;
+
+    private static class Field {
+        final int nameCode;
+        final String name; // lower case
+        GridGraph grid; // bins as this field last saw them
+        int[] dist; // steps to the nearest bin of the name, Integer.MAX_VALUE if none is reachable
+        int[] parent; // next cell towards that bin, -1 on the bins themselves
+        boolean stale;
+        final List<Integer> pendingCells = new ArrayList<>();
+        final List<Product> pendingOccupants = new ArrayList<>();
+
+        Field(int nameCode) {
+            this.nameCode = nameCode;
+            this.name = ProductNames.keyOf(nameCode);
+        }
+    }
+
+    public SkuDistanceFields(ProductGrid inventory) {
+        this.inventory = inventory;
+        this.width = inventory.getGridWidth();
+        this.height = inventory.getGridHeight();
+    }
+
+    @Override
+    public synchronized void cellChanged(int x, int y, Product occupant) {
+        for (Field field : fields.values()) {
+            if (field.stale) {
+                continue;
+            }
+            if (field.pendingCells.size() == MAX_PENDING) {
+                field.stale = true;
+                field.pendingCells.clear();
+                field.pendingOccupants.clear();
+                continue;
+            }
+            field.pendingCells.add(y * width + x);
+            field.pendingOccupants.add(occupant);
+        }
+    }
+
+    // Steps from (x, y) to the nearest bin named name, -1 if there is none or it cannot be reached
+    public synchronized int distanceTo(int x, int y, String name) {
+        Field field = fieldFor(name);
+        if (field == null) {
+            return -1;
+        }
+        int d = field.dist[y * width + x];
+        return d == Integer.MAX_VALUE ? -1 : d;
+    }
+
+    // Number of full rebuilds so far, a new field counts as one
+    public synchronized long getRebuilds() {
+        return rebuilds;
+    }
+
+    // Route from a product to the nearest bin named targetName, same answers as PathFinder
+    public synchronized PathFinder.PathResult findShortestPath(int sourceId, String targetName) {
+        String algorithm = "Dijkstra (SKU field)";
+        Product source = inventory.getProductById(sourceId);
+        if (source == null) {
+            return new PathFinder.PathResult(new ArrayList<>(), 0, 0, algorithm, "Source product not found");
+        }
+        if (inventory.countBinsOf(targetName) == 0) {
+            return new PathFinder.PathResult(new ArrayList<>(), 0, 0, algorithm, "No target products found");
+        }
+
+        // Bringing the field up to date counts as building, walking it as the search
+        long buildStart = System.nanoTime();
+        Field field = fieldFor(targetName);
+        long startTime = System.nanoTime();
+        int cell = source.y * width + source.x;
+        if (field.dist[cell] == Integer.MAX_VALUE) {
+            PathFinder.PathResult result = new PathFinder.PathResult(new ArrayList<>(), 0, 0, algorithm,
+                    "No path found to any target product");
+            result.stats.buildNanos = startTime - buildStart;
+            return result;
+        }
+
+        // Walk downhill, every step lands on a cell one closer to the bin
+        PackedPath path = new PackedPath();
+        path.append(source.x, source.y);
+        while (field.dist[cell] != 0) {
+            int count = field.grid.neighbours(cell, neighbours);
+            int next = -1;
+            for (int k = 0; k < count && next == -1; k++) {
+                int n = neighbours[k];
+                if (field.dist[n] == field.dist[cell] - 1 && isExpandable(field, n)) {
+                    next = n;
+                }
+            }
+            cell = next;
+            path.append(cell % width, cell / width);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        PathFinder.PathResult result = new PathFinder.PathResult(path, (elapsed + startTime - buildStart) / 1_000_000,
+                path.size() - 1, algorithm);
+        result.stats.buildNanos = startTime - buildStart;
+        result.stats.searchNanos = elapsed;
+        result.stats.expanded = path.size();
+        return result;
+    }
+
+    // Field of the name brought up to date, null when no bin has the name, which needs no search
+    private Field fieldFor(String name) {
+        int code = ProductNames.find(name);
+        if (code == -1 || inventory.countBinsOf(name) == 0) {
+            return null;
+        }
+        Field field = fields.get(code);
+        if (field == null) {
+            field = new Field(code);
+            field.stale = true;
+            fields.put(code, field);
+        }
+        if (field.stale) {
+            rebuild(field);
+        } else {
+            for (int i = 0; i < field.pendingCells.size(); i++) {
+                apply(field, field.pendingCells.get(i), field.pendingOccupants.get(i));
+                if (field.stale) {
+                    rebuild(field);
+                    break;
+                }
+            }
+        }
+        field.pendingCells.clear();
+        field.pendingOccupants.clear();
+        return field;
+    }
+
+    // Multi-source breadth-first search out of every bin of the name
+    private void rebuild(Field field) {
+        rebuilds++;
+        field.grid = GridGraph.fromProducts(inventory.getAllProducts(), width, height, inventory.getFloorPlan());
+        int cellCount = field.grid.getCellCount();
+        if (field.dist == null) {
+            field.dist = new int[cellCount];
+            field.parent = new int[cellCount];
+        }
+        Arrays.fill(field.dist, Integer.MAX_VALUE);
+        int[] bfs = new int[cellCount];
+        int tail = 0;
+        for (Product p : inventory.getProductsByName(field.name)) {
+            if (field.grid.contains(p.x, p.y)) {
+                int cell = p.y * width + p.x;
+                field.dist[cell] = 0;
+                field.parent[cell] = -1;
+                bfs[tail++] = cell;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int current = bfs[head];
+            if (!isExpandable(field, current)) {
+                continue;
+            }
+            int count = field.grid.neighbours(current, neighbours);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (field.dist[next] == Integer.MAX_VALUE) {
+                    field.dist[next] = field.dist[current] + 1;
+                    field.parent[next] = current;
+                    bfs[tail++] = next;
+                }
+            }
+        }
+        field.stale = false;
+    }
+
+    private void apply(Field field, int cell, Product occupant) {
+        GridGraph grid = field.grid;
+        int x = cell % width;
+        int y = cell / width;
+        boolean wasBlocked = grid.isBlocked(x, y);
+        boolean wasSource = wasBlocked && field.dist[cell] == 0;
+        if (occupant == null) {
+            if (!wasBlocked) {
+                return;
+            }
+            grid.setBlocked(x, y, false);
+            if (wasSource) {
+                // Everything that led to the bin, the bin included, has to find another one
+                field.dist[cell] = Integer.MAX_VALUE;
+                refill(field, cell, true);
+            } else {
+                // A cleared bin opens a new passage, routes through it can only get shorter
+                propagate(field, cell);
+            }
+        } else {
+            boolean isSource = occupant.nameCode == field.nameCode;
+            if (wasBlocked) {
+                field.stale |= wasSource != isSource;
+                return;
+            }
+            grid.setBlocked(x, y, true);
+            if (isSource) {
+                field.dist[cell] = 0;
+                field.parent[cell] = -1;
+                propagate(field, cell);
+            } else {
+                // The cell itself keeps its distance, only routes that walked through it change
+                refill(field, cell, false);
+            }
+        }
+    }
+
+    // Forgets every cell whose route ran through root, then fills them in again from the cells
+    // around them, which still hold valid distances
+    private void refill(Field field, int root, boolean includeRoot) {
+        int[] dist = field.dist;
+        int[] parent = field.parent;
+        List<Integer> region = new ArrayList<>();
+        region.add(root);
+        for (int i = 0; i < region.size(); i++) {
+            int current = region.get(i);
+            int count = field.grid.neighbours(current, neighbours);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (parent[next] == current && dist[next] != Integer.MAX_VALUE && dist[next] != 0) {
+                    dist[next] = Integer.MAX_VALUE;
+                    region.add(next);
+                }
+            }
+        }
+        if (!includeRoot) {
+            region.remove(0);
+        }
+
+        IndexedMinHeap heap = queue(field);
+        for (int cell : region) {
+            int count = field.grid.neighbours(cell, neighbours);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (dist[next] != Integer.MAX_VALUE && isExpandable(field, next)) {
+                    heap.insertOrDecrease(next, dist[next]);
+                }
+            }
+        }
+        drain(field, heap);
+    }
+
+    private void propagate(Field field, int cell) {
+        int count = field.grid.neighbours(cell, neighbours);
+        for (int k = 0; k < count; k++) {
+            int next = neighbours[k];
+            if (field.dist[next] != Integer.MAX_VALUE && field.dist[next] + 1 < field.dist[cell]
+                    && isExpandable(field, next)) {
+                field.dist[cell] = field.dist[next] + 1;
+                field.parent[cell] = next;
+            }
+        }
+        if (field.dist[cell] == Integer.MAX_VALUE) {
+            return;
+        }
+        IndexedMinHeap heap = queue(field);
+        heap.insert(cell, field.dist[cell]);
+        drain(field, heap);
+    }
+
+    // Dijkstra over the queued cells, lowering any neighbour that can now be reached sooner
+    private void drain(Field field, IndexedMinHeap heap) {
+        int[] dist = field.dist;
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            int count = field.grid.neighbours(current, neighbours);
+            for (int k = 0; k < count; k++) {
+                int next = neighbours[k];
+                if (dist[current] + 1 < dist[next]) {
+                    dist[next] = dist[current] + 1;
+                    field.parent[next] = current;
+                    if (isExpandable(field, next)) {
+                        heap.insertOrDecrease(next, dist[next]);
+                    }
+                }
+            }
+        }
+    }
+
+    private IndexedMinHeap queue(Field field) {
+        if (queue == null) {
+            queue = new IndexedMinHeap(field.grid.getCellCount());
+        }
+        return queue;
+    }
+
+    // Open cells and the name's own bins pass distance on, other bins can only be walked out of
+    private static boolean isExpandable(Field field, int cell) {
+        return !field.grid.isBlocked(cell) || field.dist[cell] == 0;
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.*;
+
+// Per-name distance fields against a Dijkstra search per route, and what it costs to keep a field
+// current while bins come and go.
+//   java SkuDistanceFieldsBenchmark
+// Floor size as for the app, -Dwarehouse.width / -Dwarehouse.height, 2000 x 800 by default, with
+// bins on every third column and a cross aisle every 40 rows.
+public class SkuDistanceFieldsBenchmark {
+    private static final int ROUTES = 200;
+    private static final int UPDATES = 200;
+
+    public static void main(String[] args) {
+        BenchmarkSupport.setDefault("warehouse.width", "2000");
+        BenchmarkSupport.setDefault("warehouse.height", "800");
+        int width = WarehouseConfig.GRID_WIDTH;
+        int height = WarehouseConfig.GRID_HEIGHT;
+        Random random = new Random(12);
+        ProductGrid inventory = new ProductGrid();
+        int id = 0;
+        for (int x = 2; x < width - 2; x += 3) {
+            for (int y = 2; y < height - 2; y++) {
+                if (y % 40 != 0) {
+                    inventory.addProduct(new Product(id++, "P" + random.nextInt(2000), x, y, 1));
+                }
+            }
+        }
+        SkuDistanceFields fields = new SkuDistanceFields(inventory);
+        inventory.addLayoutListener(fields);
+
+        long startTime = System.nanoTime();
+        fields.distanceTo(0, 0, "P7");
+        System.out.printf("%d bins on %d x %d, building a field: %.1f ms%n", id, width, height,
+                (System.nanoTime() - startTime) / 1e6);
+
+        List<Product> all = inventory.getAllProducts();
+        LayoutSnapshot layout = LayoutSnapshot.of(all, width, height);
+        long fieldNanos = 0;
+        long searchNanos = 0;
+        int mismatches = 0;
+        for (int i = 0; i < ROUTES; i++) {
+            Product source = all.get(random.nextInt(all.size()));
+            long t0 = System.nanoTime();
+            PathFinder.PathResult fromField = fields.findShortestPath(source.id, "P7");
+            long t1 = System.nanoTime();
+            PathFinder.PathResult searched = PathFinder.findShortestPath(layout, source.id, "P7", PathFinder.DIJKSTRA);
+            long t2 = System.nanoTime();
+            fieldNanos += t1 - t0;
+            searchNanos += t2 - t1;
+            mismatches += fromField.distance == searched.distance ? 0 : 1;
+        }
+        System.out.printf("route: field %.3f ms, Dijkstra %.3f ms, %d distances differ%n", fieldNanos / 1e6 / ROUTES,
+                searchNanos / 1e6 / ROUTES, mismatches);
+
+        // Alternating removals and additions, some of them bins of the field's own name
+        long rebuildsBefore = fields.getRebuilds();
+        long updateNanos = 0;
+        for (int i = 0; i < UPDATES; i++) {
+            long t0 = System.nanoTime();
+            if (i % 2 == 0) {
+                inventory.removeProduct(all.get(random.nextInt(all.size())).id);
+            } else {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                if (!inventory.isPositionOccupied(x, y)) {
+                    inventory.addProduct(new Product(id++, i % 4 == 1 ? "P7" : "Q", x, y, 1));
+                }
+            }
+            fields.distanceTo(0, 0, "P7");
+            updateNanos += System.nanoTime() - t0;
+        }
+        System.out.printf("update and lookup: %.3f ms each, %d rebuilds%n", updateNanos / 1e6 / UPDATES,
+                fields.getRebuilds() - rebuildsBefore);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+public class TargetSet {
+    // Up to this many targets the exact nearest Manhattan distance is cheap enough to compute
+    private static final int EXACT_LIMIT = 8;
+
+    private final int width;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    private int[] xs = new int[8];
+    private int[] ys = new int[8];
+    private int size;
+
+    // Distinct target columns and rows, sorted once the set is sealed
+    private int[] sortedX;
+    private int[] sortedY;
+
+    public TargetSet(GridGraph grid) {
+        this.width = grid.getWidth();
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * grid.getHeight()];
+    }
+
+    public void add(int x, int y) {
+        if (sortedX != null) {
+            throw new IllegalStateException("Target set is sealed");
+        }
+        int word = y * wordsPerRow + (x >>> 6);
+        if ((bits[word] & (1L << x)) != 0) {
+            return;
+        }
+        bits[word] |= 1L << x;
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    // Freezes the set and prepares the heuristic lookup, after this it can be shared between threads
+    public TargetSet seal() {
+        if (sortedX == null) {
+            sortedX = distinctSorted(xs, size);
+            sortedY = distinctSorted(ys, size);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public boolean contains(int x, int y) {
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public boolean contains(int cell) {
+        return contains(cell % width, cell / width);
+    }
+
+    // Index of the target nearest to (x, y) by |dx| + |dy|, -1 if the set is empty
+    public int nearest(int x, int y) {
+        return NearestScan.nearest(xs, ys, size, x, y);
+    }
+
+    // Indices of the targets at most limit away from (x, y) by |dx| + |dy|
+    public int[] within(int x, int y, int limit) {
+        int[] found = new int[size];
+        return Arrays.copyOf(found, NearestScan.within(xs, ys, size, x, y, limit, found));
+    }
+
+    // Same row-aligned layout as GridGraph.getBlockedWord
+    public long getWord(int y, int word) {
+        return bits[y * wordsPerRow + word];
+    }
+
+    // Consistent lower bound on the Manhattan distance to the nearest target.
+    // Exact for small sets, otherwise the larger of the distances to the nearest
+    // target column and the nearest target row, found by binary search.
+    public int estimate(int x, int y) {
+        if (size <= EXACT_LIMIT) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, Math.abs(xs[i] - x) + Math.abs(ys[i] - y));
+            }
+            return min;
+        }
+        return Math.max(distanceToNearest(sortedX, x), distanceToNearest(sortedY, y));
+    }
+
+    // Distance from value to the closest entry of a sorted array
+    static int distanceToNearest(int[] sorted, int value) {
+        int i = Arrays.binarySearch(sorted, value);
+        if (i >= 0) {
+            return 0;
+        }
+        int insertion = -i - 1;
+        int best = Integer.MAX_VALUE;
+        if (insertion < sorted.length) {
+            best = sorted[insertion] - value;
+        }
+        if (insertion > 0) {
+            best = Math.min(best, value - sorted[insertion - 1]);
+        }
+        return best;
+    }
+
+    private static int[] distinctSorted(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+}
@@ -8,14 +8,38 @@ public class WarehouseApp {
     private static WarehouseGUI gui;
     private static List<Product> products;
 
+    // Full inventory laid out on the floor, the distance cache follows its layout version
+    private static ProductGrid inventory = new ProductGrid();
+    private static DistanceCache distanceCache = new DistanceCache(inventory);
+
+    // Per product name distance fields, nearest-bin lookups without a search
+    private static SkuDistanceFields skuFields = new SkuDistanceFields(inventory);
+
+    // Route last shown by a path search, repaired in place when bins change under it
+    private static RouteReplanner activeRoute;
+    private static int activeRouteSourceId = -1;
+
+    // Database rows the inventory could not lay out, e.g. two on one cell. While there are any,
+    // queries the inventory answers from memory go to the database instead, so no row is missed.
+    private static List<Product> unplaced = Collections.emptyList();
+
     // Define grid limits
-    private static final int MAX_X = 30; // Maximum X coordinate (30 grid cells)
-    private static final int MAX_Y = 30; // Maximum Y coordinate (30 grid cells)
+    private static final int MAX_X = WarehouseConfig.GRID_WIDTH; // Maximum X coordinate
+    private static final int MAX_Y = WarehouseConfig.GRID_HEIGHT; // Maximum Y coordinate
 
     // Warehouse start node (entrance)
     private static final int START_NODE_X = 0;
     private static final int START_NODE_Y = 0;
 
+    // Chooses shelves for new stock when the user asks for auto slotting
+    private static PutawayService putaway = new PutawayService(inventory, START_NODE_X, START_NODE_Y);
+
+    // Time the pick tour optimizer may spend improving a route
+    private static final long TOUR_TIME_BUDGET_MS = 200;
+
+    // Rows a search fills the table with, the best matches
+    private static final int SEARCH_PAGE_SIZE = 1000;
+
     public static void main(String[] args) {
         // Init GUI
         SwingUtilities.invokeLater(() -> {
@@ -24,6 +48,7 @@ public class WarehouseApp {
                 gui = new WarehouseGUI();
                 products = new ArrayList<>();
                 setupEventHandlers();
+                inventory.addLayoutListener(skuFields);
                 refreshProductTable();
                 gui.setVisible(true);
             } catch (SQLException e) {
@@ -37,8 +62,9 @@ public class WarehouseApp {
         // Events
         gui.addButton.addActionListener(e -> addProduct());
         gui.orderButton.addActionListener(e -> orderProduct());
-        gui.dijkstraButton.addActionListener(e -> findPath(false));
-        gui.aStarButton.addActionListener(e -> findPath(true));
+        gui.dijkstraButton.addActionListener(e -> findPath(PathFinder.DIJKSTRA));
+        gui.aStarButton.addActionListener(e -> findPath(PathFinder.A_STAR));
+        gui.jpsButton.addActionListener(e -> findPath(PathFinder.JUMP_POINT));
         gui.refreshButton.addActionListener(e -> refreshProductTable());
         gui.searchButton.addActionListener(e -> searchProducts());
         gui.lowStockButton.addActionListener(e -> findLowStockProducts());
@@ -59,6 +85,16 @@ public class WarehouseApp {
 
             int quantity = Integer.parseInt(quantityText);
 
+            if (gui.isAutoSlot()) {
+                Point cell = putaway.chooseCell(name);
+                if (cell == null) {
+                    gui.setStatus("No free shelf left on the floor", true);
+                    return;
+                }
+                x = cell.x;
+                y = cell.y;
+            }
+
             // Validate coordinates
             if (x < 0 || x >= MAX_X || y < 0 || y >= MAX_Y) {
                 gui.setStatus(String.format("Coordinates must be between (1,1) and (%d,%d)", MAX_X, MAX_Y),
@@ -66,11 +102,21 @@ public class WarehouseApp {
                 return;
             }
 
+            if (!inventory.isStorable(x, y)) {
+                gui.setStatus("That cell is a rack or wall on the floor plan", true);
+                return;
+            }
+
             if (quantity < 0) {
                 gui.setStatus("Quantity cannot be negative", true);
                 return;
             }
 
+            if (inventory.isPositionOccupied(x, y)) {
+                gui.setStatus(String.format("Row %d, column %d already holds a product", x + 1, y + 1), true);
+                return;
+            }
+
             // Save
             String sql = "INSERT INTO products(name, x, y, quantity) VALUES (?, ?, ?, ?)";
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -79,7 +125,7 @@ public class WarehouseApp {
                 pstmt.setInt(3, y);
                 pstmt.setInt(4, quantity);
                 pstmt.executeUpdate();
-                gui.setStatus("Product added successfully", false);
+                gui.setStatus(String.format("Product added at row %d, column %d", x + 1, y + 1), false);
                 gui.clearInputFields();
                 refreshProductTable();
             }
@@ -123,8 +169,9 @@ public class WarehouseApp {
 
             // Find all nodes with this product
             List<Product> productNodes = new ArrayList<>();
+            int productCode = ProductNames.find(productName);
             for (Product p : products) {
-                if (p.name.equalsIgnoreCase(productName)) {
+                if (p.nameCode == productCode) {
                     productNodes.add(p);
                 }
             }
@@ -146,38 +193,35 @@ public class WarehouseApp {
                 return;
             }
 
-            // Sort nodes by distance from warehouse start node (0,0)
-            productNodes.sort((p1, p2) -> {
-                int dist1 = Math.abs(p1.x - START_NODE_X) + Math.abs(p1.y - START_NODE_Y);
-                int dist2 = Math.abs(p2.x - START_NODE_X) + Math.abs(p2.y - START_NODE_Y);
-                return Integer.compare(dist1, dist2);
-            });
+            // Plan the pick tour, choosing the bins that keep the walk shortest
+            PickTourOptimizer.PickTour tour = PickTourOptimizer.optimize(
+                    distanceCache.getLayout(),
+                    START_NODE_X, START_NODE_Y, productNodes, orderQuantity,
+                    TOUR_TIME_BUDGET_MS, Runtime.getRuntime().availableProcessors() * 2);
+
+            if (!tour.errorMessage.isEmpty()) {
+                gui.setStatus(tour.errorMessage, true);
+                return;
+            }
 
             // Process order
-            int remainingOrder = orderQuantity;
             List<Integer> nodesToDelete = new ArrayList<>();
             StringBuilder orderInfo = new StringBuilder();
             orderInfo.append("=== ORDER DETAILS ===\n\n");
             orderInfo.append(String.format("Product: %s\n", productName));
             orderInfo.append(String.format("Total Quantity Ordered: %d\n", orderQuantity));
             orderInfo.append(String.format("Start Point: Row 0, Column 0\n\n"));
-            orderInfo.append("=== PICKUP ROUTE (Nearest to Start) ===\n\n");
-
-            for (Product node : productNodes) {
-                if (remainingOrder <= 0)
-                    break;
+            orderInfo.append("=== PICKUP ROUTE (Optimized Tour) ===\n\n");
 
+            for (int i = 0; i < tour.stops.size(); i++) {
+                Product node = tour.stops.get(i);
                 int available = node.quantity;
-                int toTake = Math.min(available, remainingOrder);
-                remainingOrder -= toTake;
-
-                // Calculate distance from start
-                int distanceFromStart = Math.abs(node.x - START_NODE_X) + Math.abs(node.y - START_NODE_Y);
+                int toTake = tour.pickQuantities[i];
 
                 // Add to order info with more detailed location information
-                orderInfo.append(String.format("Stop #%d:\n", productNodes.indexOf(node) + 1));
+                orderInfo.append(String.format("Stop #%d:\n", i + 1));
                 orderInfo.append(String.format("  Location: Row %d, Column %d\n", node.x + 1, node.y + 1));
-                orderInfo.append(String.format("  Distance from Start: %d units\n", distanceFromStart));
+                orderInfo.append(String.format("  Distance from Previous Stop: %d units\n", tour.legDistances[i]));
                 orderInfo.append(String.format("  Quantity to Pick: %d\n", toTake));
                 orderInfo.append(String.format("  Remaining at Location: %d\n", available - toTake));
 
@@ -205,34 +249,37 @@ public class WarehouseApp {
                 try (PreparedStatement pstmt = conn.prepareStatement(deleteSql)) {
                     for (int nodeId : nodesToDelete) {
                         pstmt.setInt(1, nodeId);
-                        pstmt.executeUpdate();
+                        pstmt.addBatch();
                     }
+                    pstmt.executeBatch();
                 }
             }
 
             // Add summary
             orderInfo.append("=== ORDER SUMMARY ===\n");
-            orderInfo.append(String.format("Total stops needed: %d\n", productNodes.size()));
+            orderInfo.append(String.format("Total stops needed: %d\n", tour.stops.size()));
             orderInfo.append(String.format("Locations cleared: %d\n", nodesToDelete.size()));
             orderInfo.append(String.format("Locations with remaining stock: %d\n",
-                    productNodes.size() - nodesToDelete.size()));
-            orderInfo.append(String.format("Total distance to cover: %d units\n",
-                    productNodes.stream()
-                            .mapToInt(p -> Math.abs(p.x - START_NODE_X) + Math.abs(p.y - START_NODE_Y))
-                            .sum()));
+                    tour.stops.size() - nodesToDelete.size()));
+            orderInfo.append(String.format("Total distance to cover (back to start): %d units\n",
+                    tour.totalDistance));
 
-            // Show order info in the path info area
+            // Refresh first, it clears the path area we are about to fill
+            followRoute(null, -1);
+            refreshProductTable();
+
+            // Show order info and the walking route
             gui.setPathInfo(orderInfo.toString());
+            gui.getVisualizationPanel().setPath(tour.route, -1, -1);
             gui.setStatus(String.format("Order processed successfully. %d units of %s ordered.",
                     orderQuantity, productName), false);
-            refreshProductTable();
 
         } catch (SQLException e) {
             gui.setStatus("Error processing order: " + e.getMessage(), true);
         }
     }
 
-    private static void findPath(boolean useAStar) {
+    private static void findPath(PathEngine engine) {
         try {
             int row = gui.getProductTable().getSelectedRow();
             if (row == -1) {
@@ -261,9 +308,22 @@ public class WarehouseApp {
                 return;
             }
 
-            PathFinder.PathResult result = PathFinder.findShortestPath(products, sourceId, targetName, useAStar);
+            // Dijkstra's answer is exactly what the distance field holds, read it instead of searching.
+            // Showing the explored cells needs a real search, so that skips the field and the tables.
+            boolean showExplored = gui.isShowExplored();
+            SearchContext.forCurrentThread().setCaptureExplored(showExplored);
+            PathFinder.PathResult result;
+            if (showExplored) {
+                result = PathFinder.findShortestPath(distanceCache.getLayout(), sourceId, targetName, engine);
+            } else if (engine == PathFinder.DIJKSTRA && isUniformFloor()) {
+                result = skuFields.findShortestPath(sourceId, targetName);
+            } else {
+                result = distanceCache.findShortestPath(sourceId, targetName, engine);
+            }
+            SearchContext.forCurrentThread().setCaptureExplored(false);
 
             if (result.path.isEmpty()) {
+                gui.setPathInfo(formatStats(result.stats));
                 gui.setStatus("No path found to target product", true);
                 return;
             }
@@ -278,8 +338,9 @@ public class WarehouseApp {
 
             // Find the target ID for visualization
             int targetId = -1;
+            int targetCode = ProductNames.find(targetName);
             for (Product p : products) {
-                if (p.name.equalsIgnoreCase(targetName)) {
+                if (p.nameCode == targetCode) {
                     Point lastPoint = result.path.get(result.path.size() - 1);
                     if (p.x == lastPoint.x && p.y == lastPoint.y) {
                         targetId = p.id;
@@ -291,18 +352,22 @@ public class WarehouseApp {
             // Update visualization
             gui.getVisualizationPanel().setProducts(products);
             gui.getVisualizationPanel().setPath(result.path, sourceId, targetId);
+            gui.getVisualizationPanel().setExplored(result.stats.explored, MAX_X);
+
+            // Keep the route live so later layout changes repair it instead of discarding it
+            followRoute(new RouteReplanner(inventory, source.x, source.y, targetName, result.path, result.distance),
+                    sourceId);
 
             // Update path info
             StringBuilder info = new StringBuilder();
             info.append(String.format("Algorithm: %s\n", result.algorithm));
-            info.append(String.format("Path found in %.3f seconds\n", result.timeTaken / 1000.0));
             info.append(String.format("Total distance: %d units\n", result.distance));
+            info.append(formatStats(result.stats));
             info.append("Path: ");
-            for (int i = 0; i < result.path.size(); i++) {
-                Point p = result.path.get(i);
-                info.append(String.format("(%d,%d)", p.x, p.y));
-                if (i < result.path.size() - 1)
-                    info.append(" → ");
+            String separator = "";
+            for (Point p : result.path) {
+                info.append(separator).append(String.format("(%d,%d)", p.x, p.y));
+                separator = " → ";
             }
             gui.setPathInfo(info.toString());
             gui.setStatus("Path found successfully using " + result.algorithm, false);
@@ -311,127 +376,144 @@ public class WarehouseApp {
         }
     }
 
-    private static void searchProducts() {
-        try {
-            String searchTerm = gui.getSearchField().getText().trim().toLowerCase();
-            if (searchTerm.isEmpty()) {
-                refreshProductTable();
-                return;
-            }
+    // The SKU distance fields count steps, so they only answer for floors where every step costs 1
+    private static boolean isUniformFloor() {
+        return WarehouseConfig.FLOOR_PLAN == null || WarehouseConfig.FLOOR_PLAN.isUniform();
+    }
 
-            // Clear existing data
-            products.clear();
-            gui.getTableModel().setRowCount(0);
+    private static String formatStats(SearchStats stats) {
+        if (stats.straightRoute) {
+            return String.format("Query took %.3f ms (build %.3f ms, search %.3f ms)\n"
+                    + "Open L-shaped walk to the nearest bin, no search ran\n",
+                    stats.getTotalNanos() / 1e6, stats.buildNanos / 1e6, stats.searchNanos / 1e6);
+        }
+        return String.format("Query took %.3f ms (build %.3f ms, search %.3f ms)\n"
+                + "Expanded %d cells, %d pushes, %d pops, peak open set %d\n",
+                stats.getTotalNanos() / 1e6, stats.buildNanos / 1e6, stats.searchNanos / 1e6,
+                stats.expanded, stats.pushes, stats.pops, stats.peakOpen);
+    }
 
-            String sql = "SELECT * FROM products WHERE LOWER(name) LIKE ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, "%" + searchTerm + "%");
-                ResultSet rs = pstmt.executeQuery();
-                while (rs.next()) {
-                    int id = rs.getInt("id");
-                    String name = rs.getString("name");
-                    int x = rs.getInt("x");
-                    int y = rs.getInt("y");
-                    int quantity = rs.getInt("quantity");
-                    Product product = new Product(id, name, x, y, quantity);
-                    products.add(product);
-                    gui.getTableModel().addRow(new Object[] { id, name, x, y, quantity });
-                }
-            }
+    private static void searchProducts() {
+        String searchTerm = gui.getSearchField().getText().trim().toLowerCase();
+        if (searchTerm.isEmpty()) {
+            refreshProductTable();
+            return;
+        }
 
-            // Update visualization
-            gui.getVisualizationPanel().setProducts(products);
-            gui.getVisualizationPanel().clearPath();
-            gui.setPathInfo("");
+        // Clear existing data
+        products.clear();
+        gui.getTableModel().setRowCount(0);
 
-            if (products.isEmpty()) {
-                gui.setStatus("No products found matching: " + searchTerm, true);
+        // Matches ranked by the inventory's name index rather than a LIKE scan of the database,
+        // which always reads every row because of the leading wildcard. Rows the inventory could
+        // not place are only in the database, so then the scan it is.
+        List<Product> found;
+        int total;
+        try {
+            if (unplaced.isEmpty()) {
+                found = inventory.searchProducts(searchTerm, 0, SEARCH_PAGE_SIZE);
+                total = inventory.countSearchResults(searchTerm);
             } else {
-                gui.setStatus("Found " + products.size() + " products matching: " + searchTerm, false);
+                found = queryProducts("SELECT * FROM products WHERE LOWER(name) LIKE ?", "%" + searchTerm + "%");
+                total = found.size();
             }
         } catch (SQLException e) {
             gui.setStatus("Error searching products: " + e.getMessage(), true);
+            return;
+        }
+        for (Product product : found) {
+            products.add(product);
+            gui.getTableModel().addRow(new Object[] {
+                    product.id, product.name, product.x, product.y, product.quantity
+            });
+        }
+
+        // Update visualization
+        gui.getVisualizationPanel().setProducts(products);
+        gui.getVisualizationPanel().clearPath();
+        gui.setPathInfo("");
+
+        if (products.isEmpty()) {
+            gui.setStatus("No products found matching: " + searchTerm, true);
+        } else if (total > products.size()) {
+            gui.setStatus(String.format("Found %d products matching: %s, showing the best %d, refine the search"
+                    + " to see the rest", total, searchTerm, products.size()), true);
+        } else {
+            gui.setStatus("Found " + products.size() + " products matching: " + searchTerm, false);
         }
     }
 
     private static void findLowStockProducts() {
-        try {
-            // Ask user for the threshold
-            String thresholdStr = JOptionPane.showInputDialog(gui,
-                    "Enter quantity threshold for low stock alert (products with quantity <= threshold will be shown):",
-                    "Low Stock Threshold",
-                    JOptionPane.QUESTION_MESSAGE);
-
-            if (thresholdStr == null || thresholdStr.trim().isEmpty()) {
-                return;
-            }
+        // Ask user for the threshold
+        String thresholdStr = JOptionPane.showInputDialog(gui,
+                "Enter quantity threshold for low stock alert (products with quantity <= threshold will be shown):",
+                "Low Stock Threshold",
+                JOptionPane.QUESTION_MESSAGE);
+
+        if (thresholdStr == null || thresholdStr.trim().isEmpty()) {
+            return;
+        }
 
-            int threshold;
-            try {
-                threshold = Integer.parseInt(thresholdStr.trim());
-                if (threshold < 0) {
-                    gui.setStatus("Threshold cannot be negative", true);
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                gui.setStatus("Please enter a valid number for threshold", true);
+        int threshold;
+        try {
+            threshold = Integer.parseInt(thresholdStr.trim());
+            if (threshold < 0) {
+                gui.setStatus("Threshold cannot be negative", true);
                 return;
             }
+        } catch (NumberFormatException e) {
+            gui.setStatus("Please enter a valid number for threshold", true);
+            return;
+        }
 
-            // Clear existing data
-            products.clear();
-            gui.getTableModel().setRowCount(0);
-
-            // Query products with quantity less than or equal to threshold
-            String sql = "SELECT * FROM products WHERE quantity <= ? ORDER BY quantity ASC";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, threshold);
-                ResultSet rs = pstmt.executeQuery();
+        // Clear existing data
+        products.clear();
+        gui.getTableModel().setRowCount(0);
 
-                boolean foundLowStock = false;
-                while (rs.next()) {
-                    foundLowStock = true;
-                    int id = rs.getInt("id");
-                    String name = rs.getString("name");
-                    int x = rs.getInt("x");
-                    int y = rs.getInt("y");
-                    int quantity = rs.getInt("quantity");
+        // Products with quantity less than or equal to threshold, already sorted, straight
+        // from the inventory's quantity index rather than the database
+        List<Product> lowStock;
+        try {
+            lowStock = unplaced.isEmpty() ? inventory.getLowStockProducts(threshold)
+                    : queryProducts("SELECT * FROM products WHERE quantity <= ? ORDER BY quantity ASC, id ASC",
+                            threshold);
+        } catch (SQLException e) {
+            gui.setStatus("Error finding low stock products: " + e.getMessage(), true);
+            return;
+        }
+        boolean foundLowStock = false;
+        for (Product product : lowStock) {
+            foundLowStock = true;
+            products.add(product);
+            gui.getTableModel().addRow(new Object[] {
+                    product.id, product.name, product.x, product.y, product.quantity
+            });
 
-                    Product product = new Product(id, name, x, y, quantity);
-                    products.add(product);
-                    gui.getTableModel().addRow(new Object[] {
-                            id, name, x, y, quantity
-                    });
+            // If quantity is 0, highlight it with a warning
+            if (product.quantity == 0) {
+                gui.setStatus("WARNING: " + product.name + " is out of stock!", true);
+            }
+        }
 
-                    // If quantity is 0, highlight it with a warning
-                    if (quantity == 0) {
-                        gui.setStatus("WARNING: " + name + " is out of stock!", true);
-                    }
-                }
+        if (!foundLowStock) {
+            gui.setStatus("No products found with quantity <= " + threshold, false);
+        } else {
+            // Update visualization
+            gui.getVisualizationPanel().setProducts(products);
 
-                if (!foundLowStock) {
-                    gui.setStatus("No products found with quantity <= " + threshold, false);
-                } else {
-                    // Update visualization
-                    gui.getVisualizationPanel().setProducts(products);
-
-                    // Show summary in path info area
-                    StringBuilder summary = new StringBuilder();
-                    summary.append("Low Stock Summary (Threshold: ").append(threshold).append(")\n");
-                    summary.append("Total low stock items: ").append(products.size()).append("\n");
-                    summary.append("Products needing restock:\n");
-
-                    for (Product p : products) {
-                        summary.append(String.format("- %s (ID: %d): %d units\n",
-                                p.name, p.id, p.quantity));
-                    }
+            // Show summary in path info area
+            StringBuilder summary = new StringBuilder();
+            summary.append("Low Stock Summary (Threshold: ").append(threshold).append(")\n");
+            summary.append("Total low stock items: ").append(products.size()).append("\n");
+            summary.append("Products needing restock:\n");
 
-                    gui.setPathInfo(summary.toString());
-                    gui.setStatus("Found " + products.size() + " products with low stock", false);
-                }
+            for (Product p : products) {
+                summary.append(String.format("- %s (ID: %d): %d units\n",
+                        p.name, p.id, p.quantity));
             }
-        } catch (SQLException e) {
-            gui.setStatus("Error searching low stock products: " + e.getMessage(), true);
+
+            gui.setPathInfo(summary.toString());
+            gui.setStatus("Found " + products.size() + " products with low stock", false);
         }
     }
 
@@ -447,10 +529,10 @@ public class WarehouseApp {
                     int x = rs.getInt("x");
                     int y = rs.getInt("y");
                     int quantity = rs.getInt("quantity");
-                    Product product = new Product(id, name, x, y, quantity);
-                    products.add(product);
+                    products.add(new Product(id, name, x, y, quantity));
                 }
             }
+            unplaced = inventory.replaceAll(products);
 
             // Sort products by quantity
             QuickSort.sort(products);
@@ -466,10 +548,50 @@ public class WarehouseApp {
             gui.updateProductDropdowns(products);
 
             gui.getVisualizationPanel().setProducts(products);
-            gui.getVisualizationPanel().clearPath();
-            gui.setPathInfo("");
+            List<Point> route = activeRoute == null ? Collections.emptyList() : activeRoute.getRoute();
+            if (route.isEmpty()) {
+                gui.getVisualizationPanel().clearPath();
+                gui.setPathInfo("");
+            } else {
+                // Show the active route repaired around whatever changed
+                gui.getVisualizationPanel().setPath(route, activeRouteSourceId, -1);
+                String format = activeRoute.isLastRepairFull() ? "Route replanned: %d units, %d cells searched\n"
+                        : "Route repaired: %d units, %d cells re-expanded\n";
+                gui.setPathInfo(String.format(format, activeRoute.getDistance(), activeRoute.getLastExpanded()));
+            }
         } catch (SQLException e) {
             gui.setStatus("Error refreshing table: " + e.getMessage(), true);
         }
+        if (!unplaced.isEmpty()) {
+            gui.setStatus(String.format("%d products share a cell or stand off the floor, they are not drawn",
+                    unplaced.size()), true);
+        }
+    }
+
+    // Rows of a query with one parameter, as products
+    private static List<Product> queryProducts(String sql, Object parameter) throws SQLException {
+        List<Product> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, parameter);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Product(rs.getInt("id"), rs.getString("name"), rs.getInt("x"), rs.getInt("y"),
+                            rs.getInt("quantity")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Makes route the one repaired on layout changes, null stops following the current one
+    private static void followRoute(RouteReplanner route, int sourceId) {
+        if (activeRoute != null) {
+            inventory.removeLayoutListener(activeRoute);
+        }
+        activeRoute = route;
+        activeRouteSourceId = sourceId;
+        if (route != null) {
+            inventory.addLayoutListener(route);
+        }
     }
 }
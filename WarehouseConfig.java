@@ -0,0 +1,26 @@
+public class WarehouseConfig {
+    // Racks, one-way aisles and slow zones read from a file, e.g. -Dwarehouse.layout=floor.txt,
+    // see FloorPlan for the format. Null when the floor is open everywhere.
+    public static final FloorPlan FLOOR_PLAN = FloorPlan.loadConfigured(System.getProperty("warehouse.layout"));
+
+    // Floor size in cells, the one place it is defined. Larger sites override it at launch,
+    // e.g. java -Dwarehouse.width=2000 -Dwarehouse.height=800 WarehouseApp. A floor plan brings its own size.
+    public static final int GRID_WIDTH = FLOOR_PLAN != null ? FLOOR_PLAN.getWidth()
+            : Integer.getInteger("warehouse.width", 30);
+    public static final int GRID_HEIGHT = FLOOR_PLAN != null ? FLOOR_PLAN.getHeight()
+            : Integer.getInteger("warehouse.height", 30);
+
+    // How ProductGrid keeps its bins: "heap" for Product objects, "columnar" for primitive columns
+    // on very large catalogs, e.g. -Dwarehouse.store=columnar, or "mapped" for files that survive
+    // a restart and stay off the heap
+    public static final String PRODUCT_STORE = System.getProperty("warehouse.store", "heap");
+
+    // Directory of the mapped product store
+    public static final String STORE_DIRECTORY = System.getProperty("warehouse.storeDir", "inventory");
+
+    // Side length of the square clusters used by hierarchical routing
+    public static final int CLUSTER_SIZE = Integer.getInteger("warehouse.clusterSize", 16);
+
+    private WarehouseConfig() {
+    }
+}
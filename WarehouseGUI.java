@@ -14,7 +14,10 @@ public class WarehouseGUI extends JFrame {
     private JTextField searchField, quantityField;
     private JComboBox<String> productDropdown, rowDropdown, colDropdown, orderProductDropdown;
     private JLabel statusLabel;
-    public JButton addButton, orderButton, dijkstraButton, aStarButton, refreshButton, searchButton, lowStockButton;
+    public JButton addButton, orderButton, dijkstraButton, aStarButton, jpsButton, refreshButton, searchButton,
+            lowStockButton;
+    private JCheckBox showExploredBox;
+    private JCheckBox autoSlotBox;
     private PathVisualizationPanel visualizationPanel;
     private JPanel rightPanel;
     private JTextArea pathInfoArea;
@@ -115,12 +118,8 @@ public class WarehouseGUI extends JFrame {
         orderProductDropdown.setFont(new Font("Arial", Font.PLAIN, 12));
 
         // Create row and column dropdowns
-        String[] numbers = new String[30];
-        for (int i = 0; i < 30; i++) {
-            numbers[i] = String.valueOf(i + 1);
-        }
-        rowDropdown = new JComboBox<>(numbers);
-        colDropdown = new JComboBox<>(numbers);
+        rowDropdown = new JComboBox<>(numberedChoices(WarehouseConfig.GRID_WIDTH));
+        colDropdown = new JComboBox<>(numberedChoices(WarehouseConfig.GRID_HEIGHT));
         rowDropdown.setBackground(Color.WHITE);
         colDropdown.setBackground(Color.WHITE);
         rowDropdown.setFont(new Font("Arial", Font.PLAIN, 12));
@@ -175,14 +174,26 @@ public class WarehouseGUI extends JFrame {
         orderButton = createStyledButton("Order Product", new Color(255, 140, 0)); // Orange color for order
         dijkstraButton = createStyledButton("Find Path (Dijkstra)", buttonColor);
         aStarButton = createStyledButton("Find Path (A*)", new Color(148, 0, 211)); // Purple color for A*
+        jpsButton = createStyledButton("Find Path (JPS)", new Color(0, 128, 128)); // Teal color for JPS
         refreshButton = createStyledButton("Refresh", buttonColor);
 
         buttonPanel.add(addButton);
         buttonPanel.add(orderButton);
         buttonPanel.add(dijkstraButton);
         buttonPanel.add(aStarButton);
+        buttonPanel.add(jpsButton);
         buttonPanel.add(refreshButton);
 
+        // Shades every cell the next path search expands, for comparing heuristics
+        showExploredBox = new JCheckBox("Show explored");
+        showExploredBox.setBackground(backgroundColor);
+        buttonPanel.add(showExploredBox);
+
+        // Lets the putaway service choose the shelf instead of the row and column pickers
+        autoSlotBox = new JCheckBox("Auto slot");
+        autoSlotBox.setBackground(backgroundColor);
+        buttonPanel.add(autoSlotBox);
+
         // Combine all panels
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.setBackground(backgroundColor);
@@ -218,6 +229,15 @@ public class WarehouseGUI extends JFrame {
         add(rightPanel, BorderLayout.CENTER);
     }
 
+    // "1".."count" for the shelf row and column pickers
+    private String[] numberedChoices(int count) {
+        String[] numbers = new String[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = String.valueOf(i + 1);
+        }
+        return numbers;
+    }
+
     private JTextField createStyledTextField() {
         JTextField field = new JTextField(15);
         field.setBackground(Color.WHITE);
@@ -271,6 +291,14 @@ public class WarehouseGUI extends JFrame {
         return visualizationPanel;
     }
 
+    public boolean isShowExplored() {
+        return showExploredBox.isSelected();
+    }
+
+    public boolean isAutoSlot() {
+        return autoSlotBox.isSelected();
+    }
+
     public void setPathInfo(String info) {
         pathInfoArea.setText(info);
     }